@@ -0,0 +1,12 @@
+// what a player can do, one per button of BlackJack
+public enum Action {
+    DEAL,
+    INSURANCE,
+    SURRENDER,
+    PROCEED,
+    DOUBLE_DOWN,
+    HIT,
+    STAY,
+    SPLIT,
+    RESTART
+}
@@ -0,0 +1,241 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Suggests the action with the highest expected value under a {@link RuleSet}: the table's
+ * draw rule, insurance and surrender as offered, a double down takes exactly one card.
+ * Splits are not suggested.
+ * <p>
+ * Decisions for a fresh shoe are precomputed in tables (basic strategy), once per rule set,
+ * see {@link #forRules(RuleSet)}. Decisions for the cards actually left in the shoe are computed
+ * once per composition and upcard, and cached. Player draws are assumed not to change the
+ * composition during a hand.
+ */
+public class Advisor {
+    // hand states are (hard total 0..31, has ace)
+    private static final int STATES = 32 * 2;
+
+    private static final Map<RuleSet, Advisor> ADVISORS = new ConcurrentHashMap<>();
+    private static final Action[] ACTIONS = Action.values();
+
+    private final RuleSet rules;
+
+    // fresh shoe decisions, [state][upcard], see Action
+    private final byte[] playTable = new byte[STATES * 11];
+    private final byte[] playNoDoubleTable = new byte[STATES * 11];
+    private final byte[] offerTable = new byte[STATES * 11];
+
+    private final DealerOutcomes dealerOutcomes;
+    private final Map<Long, Expectations> cache;
+
+    public Advisor(final RuleSet rules) {
+        this.rules = rules;
+        dealerOutcomes = new DealerOutcomes(1024, rules.hitsSoft17());
+        cache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Long, Expectations> eldest) {
+                return size() > 256;
+            }
+        };
+
+        final DealerOutcomeTable dealer = DealerOutcomeTable.forRules(rules);
+        for (int upcard = 1; upcard <= 10; upcard++) {
+            final int[] counts = DealerOutcomes.fullShoe(rules.getDecks());
+            counts[upcard]--;
+            final Expectations expectations = new Expectations(rules, upcard, counts, dealer.outcomes(upcard, true));
+            for (int state = 0; state < STATES; state++) {
+                playTable[state * 11 + upcard] = (byte) expectations.play(state, true).ordinal();
+                playNoDoubleTable[state * 11 + upcard] = (byte) expectations.play(state, false).ordinal();
+                offerTable[state * 11 + upcard] = (byte) expectations.offer(state).ordinal();
+            }
+        }
+    }
+
+    // shared advisor for the rules, its tables are built on first use
+    public static Advisor forRules(final RuleSet rules) {
+        return ADVISORS.computeIfAbsent(rules, Advisor::new);
+    }
+
+    public RuleSet getRules() {
+        return rules;
+    }
+
+    // basic strategy, from the precomputed tables
+    public Action basicStrategy(final int hand, final int upcard, final BlackJackEngine.State state, final boolean canDoubleDown) {
+        if (state == BlackJackEngine.State.OFFER || state == BlackJackEngine.State.PLAY) {
+            return ACTIONS[basicAction(hand, upcard, state == BlackJackEngine.State.OFFER, canDoubleDown)];
+        }
+        return state == BlackJackEngine.State.DEAL ? Action.DEAL : Action.RESTART;
+    }
+
+    // basic strategy's action ordinal, for an offer or for play
+    byte basicAction(final int hand, final int upcard, final boolean offer, final boolean canDoubleDown) {
+        final int index = state(hand) * 11 + upcard;
+        if (offer) {
+            return offerTable[index];
+        }
+        return (canDoubleDown ? playTable : playNoDoubleTable)[index];
+    }
+
+    /**
+     * @param hand   player's hand, see HandValue
+     * @param upcard value of the table's upcard
+     * @param unseen cards not seen by the player per value, the shoe and the table's hole card
+     */
+    public Action advise(final int hand, final int upcard, final int[] unseen,
+                         final BlackJackEngine.State state, final boolean canDoubleDown) {
+        if (state == BlackJackEngine.State.DEAL) {
+            return Action.DEAL;
+        } else if (state == BlackJackEngine.State.FINISHED) {
+            return Action.RESTART;
+        }
+        final Expectations expectations = expectations(upcard, unseen);
+        return state == BlackJackEngine.State.OFFER
+                ? expectations.offer(state(hand))
+                : expectations.play(state(hand), canDoubleDown);
+    }
+
+    // advice for the hand the engine is playing, with the cards left in its shoe
+    public Action advise(final BlackJackEngine engine) {
+        return advise(engine, null);
+    }
+
+    // the cards left are taken from the counter of the engine's shoe, if any, instead of going through the shoe
+    public Action advise(final BlackJackEngine engine, final CardCounter counter) {
+        final BlackJackEngine.State state = engine.getState();
+        if (state != BlackJackEngine.State.OFFER && state != BlackJackEngine.State.PLAY) {
+            return advise(engine.getPlayerHand(), 0, null, state, false);
+        }
+        final int[] unseen = new int[11];
+        if (counter != null) {
+            // the hole card is unseen for the counter too
+            counter.countValues(unseen);
+        } else {
+            engine.getServingCardDeck().countValues(unseen);
+            unseen[engine.getTableCards().get(1).getValue()]++;
+        }
+        return advise(engine.getPlayerHand(), engine.getTableCards().get(0).getValue(), unseen,
+                state, engine.canDoubleDown());
+    }
+
+    private synchronized Expectations expectations(final int upcard, final int[] unseen) {
+        final long key = DealerOutcomes.pack(unseen) * 11 + upcard;
+        Expectations expectations = cache.get(key);
+        if (expectations == null) {
+            final int[] counts = unseen.clone();
+            expectations = new Expectations(rules, upcard, counts, dealerOutcomes.get(upcard, counts, true));
+            cache.put(key, expectations);
+        }
+        return expectations;
+    }
+
+    private static int state(final int hand) {
+        return HandValue.hardTotal(hand) * 2 + (HandValue.hasAce(hand) ? 1 : 0);
+    }
+
+    private static int score(final int hard, final boolean ace) {
+        return ace && hard + 10 <= 21 ? hard + 10 : hard;
+    }
+
+    // expected values of every hand state, for an upcard and a composition
+    private static class Expectations {
+        final double[] stay = new double[STATES];
+        final double[] hit = new double[STATES];
+        final double[] doubleDown = new double[STATES];
+        final double tableBlackJack; // chance that the hole card makes 21
+        final RuleSet rules;
+
+        Expectations(final RuleSet rules, final int upcard, final int[] counts, final double[] dealer) {
+            this.rules = rules;
+            int total = 0;
+            for (int value = 1; value <= 10; value++) {
+                total += counts[value];
+            }
+            final double[] draw = new double[11];
+            for (int value = 1; value <= 10; value++) {
+                draw[value] = (double) counts[value] / total;
+            }
+            tableBlackJack = upcard == 1 ? draw[10] : upcard == 10 ? draw[1] : 0;
+
+            for (int state = 0; state < STATES; state++) {
+                stay[state] = stay(score(state / 2, (state & 1) != 0), dealer);
+            }
+
+            // hitting only increases the hard total, so go from the highest
+            final double[] best = new double[STATES];
+            for (int hard = 31; hard >= 0; hard--) {
+                for (int ace = 0; ace < 2; ace++) {
+                    final int state = hard * 2 + ace;
+                    if (hard > 21) {
+                        stay[state] = hit[state] = doubleDown[state] = best[state] = -1;
+                        continue;
+                    }
+                    double hitValue = 0;
+                    double doubleValue = 0;
+                    for (int value = 1; value <= 10; value++) {
+                        final int next = Math.min(hard + value, 31) * 2 + (ace == 1 || value == 1 ? 1 : 0);
+                        hitValue += draw[value] * best[next];
+                        doubleValue += draw[value] * stay[next];
+                    }
+                    hit[state] = hitValue;
+                    doubleDown[state] = 2 * doubleValue;
+                    best[state] = Math.max(stay[state], hitValue);
+                }
+            }
+        }
+
+        private static double stay(final int score, final double[] dealer) {
+            if (score > 21) {
+                return -1;
+            }
+            double value = dealer[DealerOutcomes.BUST];
+            for (int i = 0; i < DealerOutcomes.BUST; i++) {
+                final int tableScore = i + DealerOutcomes.MIN_SCORE;
+                if (score > tableScore) {
+                    value += dealer[i];
+                } else if (score < tableScore) {
+                    value -= dealer[i];
+                }
+            }
+            return value;
+        }
+
+        double playValue(final int state, final boolean canDoubleDown) {
+            return Math.max(Math.max(stay[state], hit[state]), canDoubleDown ? doubleDown[state] : -2);
+        }
+
+        Action play(final int state, final boolean canDoubleDown) {
+            if (canDoubleDown && doubleDown[state] > stay[state] && doubleDown[state] > hit[state]) {
+                return Action.DOUBLE_DOWN;
+            }
+            return hit[state] > stay[state] ? Action.HIT : Action.STAY;
+        }
+
+        // before the table peeks: 21 on the table loses the bid, unless insured
+        Action offer(final int state) {
+            final double play = (1 - tableBlackJack) * playValue(state, true);
+            final double proceed = -tableBlackJack + play;
+
+            double insurance = Double.NEGATIVE_INFINITY;
+            if (rules.getInsurance() == RuleSet.Insurance.DOUBLE_BID) {
+                insurance = -tableBlackJack + 2 * play;
+            } else if (rules.getInsurance() == RuleSet.Insurance.SIDE_BET) {
+                // half the bid on the side, paid at the insurance payout
+                insurance = tableBlackJack * (0.5 * rules.getInsurancePayout() - 1) - (1 - tableBlackJack) * 0.5 + play;
+            }
+
+            double surrender = Double.NEGATIVE_INFINITY;
+            if (rules.getSurrender() == RuleSet.Surrender.EARLY) {
+                surrender = -0.5;
+            } else if (rules.getSurrender() == RuleSet.Surrender.LATE) {
+                surrender = -tableBlackJack - (1 - tableBlackJack) * 0.5;
+            }
+
+            if (surrender > proceed && surrender > insurance) {
+                return Action.SURRENDER;
+            }
+            return insurance > proceed ? Action.INSURANCE : Action.PROCEED;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The images of the "images" folder, decoded ahead of time by {@link AssetPacker} into one file
+ * that is memory-mapped: loading an image is a copy of its pixels, with no PNG or JPEG to decode.
+ * <pre>
+ * header: int magic, int version, int images
+ * entry:  short name length, name (UTF-8), int width, int height, int offset of the pixels
+ * pixels: width * height ints (ARGB) per image
+ * </pre>
+ * Little-endian. The images are scaled down to what the window draws, see AssetPacker.
+ */
+public final class AssetBundle {
+    static final String FILE_NAME = "assets.bin";
+    static final int MAGIC = 0x42414A42; // "BJAB"
+    static final int VERSION = 1;
+
+    // -Dblackjack.assetBundle=false decodes the images even when there is a bundle
+    private static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("blackjack.assetBundle"));
+
+    private static volatile AssetBundle bundle;
+    private static volatile boolean opened;
+
+    private final ByteBuffer pixels;
+    private final Map<String, int[]> entries = new HashMap<>(); // name to {width, height, offset}
+
+    private AssetBundle(final ByteBuffer buffer, final String source) throws IOException {
+        pixels = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (pixels.remaining() < 3 * Integer.BYTES || pixels.getInt() != MAGIC || pixels.getInt() != VERSION) {
+            throw new IOException(source + " is not an asset bundle!");
+        }
+        final int images = pixels.getInt();
+        for (int i = 0; i < images; i++) {
+            final byte[] name = new byte[pixels.getShort()];
+            pixels.get(name);
+            final int width = pixels.getInt();
+            final int height = pixels.getInt();
+            final int offset = pixels.getInt();
+            if (offset < 0 || (long) offset + (long) width * height * Integer.BYTES > pixels.limit()) {
+                throw new IOException(source + " is truncated!");
+            }
+            entries.put(new String(name, StandardCharsets.UTF_8), new int[]{width, height, offset});
+        }
+    }
+
+    // the bundle next to the images, null if it was not packed (the images are decoded then)
+    static AssetBundle get() {
+        if (!opened) {
+            synchronized (AssetBundle.class) {
+                if (!opened) {
+                    bundle = ENABLED ? open(AssetBundle.class.getResource("images/" + FILE_NAME)) : null;
+                    opened = true;
+                }
+            }
+        }
+        return bundle;
+    }
+
+    private static AssetBundle open(final URL url) {
+        if (url == null) {
+            return null;
+        }
+        try {
+            if ("file".equals(url.getProtocol())) {
+                return map(Paths.get(url.toURI()));
+            }
+            // in a jar, read it once
+            try (InputStream in = url.openStream()) {
+                return new AssetBundle(ByteBuffer.wrap(in.readAllBytes()), url.toString());
+            }
+        } catch (final IOException | URISyntaxException | RuntimeException e) {
+            System.err.println("Asset bundle not used: " + e.getMessage());
+            return null;
+        }
+    }
+
+    static AssetBundle map(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // the mapping stays valid once the channel is closed
+            return new AssetBundle(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), file.toString());
+        }
+    }
+
+    public boolean contains(final String name) {
+        return entries.containsKey(name);
+    }
+
+    // a new image of the bundle's pixels, null if the bundle does not have it
+    public BufferedImage getImage(final String name) {
+        final int[] entry = entries.get(name);
+        if (entry == null) {
+            return null;
+        }
+        final BufferedImage image = new BufferedImage(entry[0], entry[1], BufferedImage.TYPE_INT_ARGB);
+        final int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        // a duplicate, so that threads loading images at once do not share a position
+        pixels.duplicate().order(ByteOrder.LITTLE_ENDIAN).position(entry[2]).asIntBuffer().get(data);
+        return image;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,105 @@
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Build step: decodes every PNG and JPEG of an images folder and writes their pixels to one
+ * {@link AssetBundle}, next to them. Run it again when an image changes; without the bundle the
+ * images are decoded one by one as before.
+ * <p>
+ * The images are scaled down to fit the largest place the window draws them (a card is at most
+ * a few hundred pixels high), the originals would make a bundle of over 100 MB.
+ * Usage: AssetPacker [images folder] [max width] [max height]
+ */
+public class AssetPacker {
+
+    public static void main(final String[] args) throws IOException {
+        final Path folder = Paths.get(args.length > 0 ? args[0] : "images");
+        final int maxWidth = args.length > 1 ? Integer.parseInt(args[1]) : 1024;
+        final int maxHeight = args.length > 2 ? Integer.parseInt(args[2]) : 320;
+
+        final List<String> names = new ArrayList<>();
+        final List<BufferedImage> images = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(folder, "*.{png,jpg,jpeg}")) {
+            for (final Path file : files) {
+                final BufferedImage image = ImageIO.read(file.toFile());
+                if (image == null) {
+                    throw new IOException(file + " is not an image!");
+                }
+                names.add(file.getFileName().toString());
+                images.add(fit(image, maxWidth, maxHeight));
+            }
+        }
+
+        final Path bundle = folder.resolve(AssetBundle.FILE_NAME);
+        final long size = write(bundle, names, images);
+        System.out.printf("Packed %d images into %s, %,d bytes%n", images.size(), bundle, size);
+    }
+
+    // scaled down to fit, keeping its proportions, in ARGB
+    static BufferedImage fit(final BufferedImage image, final int maxWidth, final int maxHeight) {
+        final double scale = Math.min(1, Math.min((double) maxWidth / image.getWidth(), (double) maxHeight / image.getHeight()));
+        final int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        final int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        final BufferedImage fitted = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D g = fitted.createGraphics();
+        try {
+            // done once, so the slow area averaging is worth it
+            g.drawImage(image.getScaledInstance(width, height, Image.SCALE_AREA_AVERAGING), 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return fitted;
+    }
+
+    static long write(final Path file, final List<String> names, final List<BufferedImage> images) throws IOException {
+        int headerSize = 3 * Integer.BYTES;
+        for (final String name : names) {
+            headerSize += Short.BYTES + name.getBytes(StandardCharsets.UTF_8).length + 3 * Integer.BYTES;
+        }
+        final ByteBuffer header = ByteBuffer.allocate(headerSize).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(AssetBundle.MAGIC).putInt(AssetBundle.VERSION).putInt(images.size());
+        long offset = headerSize;
+        for (int i = 0; i < images.size(); i++) {
+            final byte[] name = names.get(i).getBytes(StandardCharsets.UTF_8);
+            final BufferedImage image = images.get(i);
+            header.putShort((short) name.length).put(name).putInt(image.getWidth()).putInt(image.getHeight());
+            header.putInt(Math.toIntExact(offset));
+            offset += (long) image.getWidth() * image.getHeight() * Integer.BYTES;
+        }
+        header.flip();
+
+        // written to a temporary file and moved, a running window keeps mapping the old one
+        final Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            for (final BufferedImage image : images) {
+                final int[] argb = image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+                final ByteBuffer pixels = ByteBuffer.allocate(argb.length * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                pixels.asIntBuffer().put(argb);
+                while (pixels.hasRemaining()) {
+                    channel.write(pixels);
+                }
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return offset;
+    }
+}
@@ -0,0 +1,34 @@
+/**
+ * Basic strategy for the rules, from the tables {@link Advisor} precomputes for a fresh shoe,
+ * with the same bid every hand. It never splits, like the advisor.
+ */
+public class BasicStrategy implements PlayerStrategy {
+    private static final int DOUBLE_DOWN = DecisionBatch.bit(Action.DOUBLE_DOWN);
+
+    private final Advisor advisor;
+    private final int bid;
+
+    public BasicStrategy(final RuleSet rules) {
+        this(rules, SimulationStats.BID);
+    }
+
+    public BasicStrategy(final RuleSet rules, final int bid) {
+        advisor = Advisor.forRules(rules);
+        this.bid = bid;
+    }
+
+    @Override
+    public void decide(final DecisionBatch batch) {
+        final byte[] states = batch.states;
+        final byte[] actions = batch.actions;
+        for (int i = 0; i < batch.size(); i++) {
+            if (states[i] == DecisionBatch.DEAL) {
+                actions[i] = (byte) Action.DEAL.ordinal();
+                batch.bids[i] = bid;
+            } else {
+                actions[i] = advisor.basicAction(batch.hands[i], batch.upcards[i], states[i] == DecisionBatch.OFFER,
+                        (batch.allowed[i] & DOUBLE_DOWN) != 0);
+            }
+        }
+    }
+}
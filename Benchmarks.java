@@ -0,0 +1,326 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * Micro benchmarks of the hot paths, to compare before and after a change. The JMH module (jmh/,
+ * built with the Maven build) runs them under JMH, with its forks, blackholes and GC profiler:
+ * <pre>
+ * mvn -B package
+ * java -jar jmh/target/benchmarks.jar -prof gc
+ * </pre>
+ * This runner is the fallback without Maven, on the classes compiled by javac. Each benchmark runs warmup iterations, then measured iterations of a fixed time,
+ * and reports operations per second and bytes allocated per operation (like JMH's gc profiler).
+ * Run with a regular expression to select benchmarks: Benchmarks [regex] [iterations] [millis] [forks]
+ * <p>
+ * Like JMH, every benchmark runs in JVMs of its own (1 fork by default, the results of all forks
+ * together): in a shared JVM the call to {@link Benchmark#run()} sees every benchmark before it, and
+ * the numbers of one benchmark would depend on which ran first. 0 forks runs them all in this JVM.
+ * <p>
+ * Benchmarks startup [runs] measures a cold start instead: new JVMs load the images of the first
+ * table, with the asset bundle and without it (see AssetPacker), and the milliseconds since each
+ * JVM started are reported.
+ * <p>
+ * The hands.* benchmarks evaluate 1024 deals per operation; run with
+ * --add-modules jdk.incubator.vector to compare the SIMD evaluator too (see HandEvaluator).
+ */
+public class Benchmarks {
+
+    interface Benchmark {
+        // runs the operation once, the result is consumed so that it cannot be optimized away
+        long run();
+    }
+
+    private static final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final List<String> names = new ArrayList<>();
+    private final List<Benchmark> benchmarks = new ArrayList<>();
+
+    private long sink; // consumes benchmark results
+
+    Benchmarks() {
+        final SplittableRandom random = new SplittableRandom(42);
+
+        final Deck shoe = new Deck(6, false, null, random);
+        add("deck.shuffle", () -> {
+            shoe.shuffle();
+            return shoe.peak().getIndex();
+        });
+
+        final Deck serving = new Deck(6, false, null, random);
+        final Deck returned = new Deck(6, true, null, random);
+        add("deck.takeReturn", () -> {
+            final Card card = serving.take();
+            returned.add(card);
+            if (serving.size() == 0) {
+                serving.moveCards(returned);
+            }
+            return card.getIndex();
+        });
+
+        // a reshuffle at the cut card, in place or from a pool kept full in the background
+        final Deck shuffled = new Deck(6, true, null, random);
+        final Deck shuffledShoe = new Deck(6, false, shuffled, random);
+        add("deck.refill", () -> refill(shuffledShoe, shuffled));
+        final Deck pooled = new Deck(6, true, null, random);
+        final Deck pooledShoe = new Deck(6, false, pooled, random);
+        pooledShoe.setShoePool(new ShoePool(6, 64, random));
+        add("deck.refillPooled", () -> refill(pooledShoe, pooled));
+
+        final int[] hands = new int[1024];
+        final int[] values = new int[hands.length];
+        for (int i = 0; i < hands.length; i++) {
+            final int cards = 2 + random.nextInt(3);
+            for (int c = 0; c < cards; c++) {
+                hands[i] = HandValue.add(hands[i], 1 + random.nextInt(10));
+            }
+            values[i] = 1 + random.nextInt(10);
+        }
+        final int[] next = new int[1];
+        add("hand.score", () -> {
+            final int i = next[0]++ & (hands.length - 1);
+            return HandValue.score(hands[i]);
+        });
+        add("hand.add", () -> {
+            final int i = next[0]++ & (hands.length - 1);
+            return HandValue.add(hands[i], values[i]);
+        });
+
+        // a batch of 1024 deals per operation, one hand at a time and with SIMD when available
+        final HandBatch deals = new HandBatch(1024);
+        for (int i = 0; i < deals.capacity(); i++) {
+            final int cards = 2 + random.nextInt(3);
+            for (int c = 0; c < cards; c++) {
+                deals.playerCards[c][i] = Math.min(1 + random.nextInt(13), 10);
+            }
+            for (int c = 0; c < BlackJackEngine.MAX_CARDS; c++) {
+                deals.tableCards[c][i] = Math.min(1 + random.nextInt(13), 10);
+            }
+        }
+        final List<HandEvaluator> evaluators = new ArrayList<>(List.of(new ScalarHandEvaluator()));
+        if (!(HandEvaluator.create() instanceof ScalarHandEvaluator)) {
+            evaluators.add(HandEvaluator.create());
+        }
+        for (final HandEvaluator evaluator : evaluators) {
+            add("hands.score." + evaluator.getName(), () -> {
+                evaluator.scorePlayers(deals);
+                return deals.scores[0];
+            });
+            add("hands.table." + evaluator.getName(), () -> {
+                evaluator.playTables(deals, false);
+                return deals.tableScores[0];
+            });
+        }
+
+        final BlackJackEngine dealer = new BlackJackEngine(6, 0.75, random);
+        add("table.turn", () -> {
+            Outcome outcome = dealer.deal(SimulationStats.BID);
+            if (!outcome.isFinal()) {
+                outcome = dealer.proceed();
+            }
+            if (!outcome.isFinal()) {
+                outcome = dealer.stay();
+            }
+            dealer.restart();
+            return outcome.ordinal();
+        });
+
+        // a round the way the simulator plays it, basic strategy at one table
+        final RuleSet rules = RuleSet.DEFAULT.toBuilder().decks(6).penetration(0.75).build();
+        final StrategyDriver driver = new StrategyDriver(rules, 1, new BasicStrategy(rules), random);
+        final SimulationStats stats = new SimulationStats();
+        add("hand.full", () -> {
+            driver.playRound(stats);
+            return stats.getHands();
+        });
+    }
+
+    // deals the shoe to its cut card and returns the cards, then refills it
+    private static long refill(final Deck shoe, final Deck returned) {
+        while (shoe.size() > 78) {
+            returned.add(shoe.take());
+        }
+        shoe.refill();
+        return shoe.peak().getIndex();
+    }
+
+    // the operation of one benchmark, on fixtures of its own, for the JMH module: its classes are in a package and
+    // cannot name the ones in the default package, so they look this up by reflection, once
+    public static LongSupplier operation(final String name) {
+        final Benchmarks benchmarks = new Benchmarks();
+        final int b = benchmarks.names.indexOf(name);
+        if (b < 0) {
+            throw new IllegalArgumentException("Unknown benchmark: " + name + "!");
+        }
+        return benchmarks.benchmarks.get(b)::run;
+    }
+
+    void add(final String name, final Benchmark benchmark) {
+        names.add(name);
+        benchmarks.add(benchmark);
+    }
+
+    // each benchmark in new JVMs (forks, like JMH), so that one benchmark's profile and code cannot slow down another's;
+    // with 0 forks they all run in this JVM, one after the other
+    void run(final Pattern filter, final int iterations, final long millis, final int forks)
+            throws IOException, InterruptedException {
+        System.out.printf("%-20s %16s %12s %12s%n", "Benchmark", "ops/s", "+/- (99%)", "B/op");
+        for (int b = 0; b < benchmarks.size(); b++) {
+            if (!filter.matcher(names.get(b)).find()) {
+                continue;
+            }
+            final List<String> results = new ArrayList<>();
+            if (forks == 0) {
+                results.add(measure(benchmarks.get(b), iterations, millis));
+            }
+            for (int f = 0; f < forks; f++) {
+                results.add(fork(names.get(b), iterations, millis));
+            }
+
+            // per result: allocated bytes, operations, then ops/s per iteration
+            final double[] opsPerSecond = new double[iterations * results.size()];
+            long operations = 0;
+            long allocated = 0;
+            for (int r = 0; r < results.size(); r++) {
+                final String[] fields = results.get(r).trim().split(" ");
+                allocated += Long.parseLong(fields[0]);
+                operations += Long.parseLong(fields[1]);
+                for (int i = 0; i < iterations; i++) {
+                    opsPerSecond[r * iterations + i] = Double.parseDouble(fields[2 + i]);
+                }
+            }
+
+            double mean = 0;
+            for (final double ops : opsPerSecond) {
+                mean += ops;
+            }
+            mean /= opsPerSecond.length;
+            double variance = 0;
+            for (final double ops : opsPerSecond) {
+                variance += (ops - mean) * (ops - mean);
+            }
+            final int n = opsPerSecond.length;
+            final double error = n < 2 ? 0 : 2.576 * Math.sqrt(variance / (n - 1)) / Math.sqrt(n);
+
+            System.out.printf("%-20s %,16.0f %,12.0f %12.2f%n", names.get(b), mean, error, (double) allocated / operations);
+        }
+    }
+
+    // the benchmark in a new JVM with this one's options (e.g. --add-modules), its result line
+    private static String fork(final String name, final int iterations, final long millis)
+            throws IOException, InterruptedException {
+        final List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"), "Benchmarks", "fork", name,
+                Integer.toString(iterations), Long.toString(millis)));
+        final Process fork = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        final String result;
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(fork.getInputStream()))) {
+            result = in.readLine();
+        }
+        if (fork.waitFor() != 0 || result == null) {
+            throw new IllegalStateException("Benchmark " + name + " failed in its fork!");
+        }
+        return result;
+    }
+
+    // warms the benchmark up, then measures it: allocated bytes, operations, then ops/s per iteration
+    private String measure(final Benchmark benchmark, final int iterations, final long millis) {
+        for (int i = 0; i < iterations; i++) {
+            measure(benchmark, millis);
+        }
+
+        final StringBuilder opsPerSecond = new StringBuilder();
+        long operations = 0;
+        long allocated = 0;
+        for (int i = 0; i < iterations; i++) {
+            final long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+            final long start = System.nanoTime();
+            final long count = measure(benchmark, millis);
+            final long elapsed = System.nanoTime() - start;
+            allocated += threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+            operations += count;
+            opsPerSecond.append(' ').append(count * 1e9 / elapsed);
+        }
+        // keep the results alive
+        if (sink == 42) {
+            System.err.println();
+        }
+        return allocated + " " + operations + opsPerSecond;
+    }
+
+    private static void startup(final int runs) throws IOException, InterruptedException {
+        System.out.printf("%-20s %12s %12s %12s%n", "Startup (ms)", "min", "median", "max");
+        for (final boolean bundle : new boolean[]{false, true}) {
+            final long[] millis = new long[runs];
+            for (int i = 0; i < runs; i++) {
+                final Process probe = new ProcessBuilder(Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                        "-cp", System.getProperty("java.class.path"), "-Djava.awt.headless=true",
+                        "-Dblackjack.assetBundle=" + bundle, "-Dblackjack.metrics=false", "Benchmarks", "startupProbe")
+                        .redirectError(ProcessBuilder.Redirect.INHERIT).start();
+                try (BufferedReader in = new BufferedReader(new InputStreamReader(probe.getInputStream()))) {
+                    millis[i] = Long.parseLong(in.readLine().trim());
+                }
+                probe.waitFor();
+            }
+            Arrays.sort(millis);
+            System.out.printf("%-20s %,12d %,12d %,12d%n", bundle ? "assets.bundle" : "assets.decode",
+                    millis[0], millis[runs / 2], millis[runs - 1]);
+        }
+    }
+
+    // in a new JVM: what the first table draws, then the milliseconds since the JVM started
+    private static void startupProbe() {
+        CardAtlas.of(120, 174);
+        ImageCache.get("back.png").getIconWidth();
+        ImageCache.get("deal.png").getIconWidth();
+        System.out.println(ManagementFactory.getRuntimeMXBean().getUptime());
+    }
+
+    // runs the benchmark in batches until the time is up, returns the number of operations
+    private long measure(final Benchmark benchmark, final long millis) {
+        final long deadline = System.nanoTime() + millis * 1_000_000L;
+        long count = 0;
+        long result = 0;
+        do {
+            for (int i = 0; i < 1024; i++) {
+                result += benchmark.run();
+            }
+            count += 1024;
+        } while (System.nanoTime() < deadline);
+        sink += result;
+        return count;
+    }
+
+    public static void main(final String[] args) throws IOException, InterruptedException {
+        if (args.length > 0 && args[0].equals("startup")) {
+            startup(args.length > 1 ? Integer.parseInt(args[1]) : 5);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("startupProbe")) {
+            startupProbe();
+            return;
+        }
+        if (args.length > 0 && args[0].equals("fork")) {
+            final Benchmarks benchmarks = new Benchmarks();
+            final int b = benchmarks.names.indexOf(args[1]);
+            System.out.println(benchmarks.measure(benchmarks.benchmarks.get(b), Integer.parseInt(args[2]), Long.parseLong(args[3])));
+            return;
+        }
+        final Pattern filter = Pattern.compile(args.length > 0 ? args[0] : ".*");
+        final int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        final long millis = args.length > 2 ? Long.parseLong(args[2]) : 1000;
+        final int forks = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+        new Benchmarks().run(filter, iterations, millis, forks);
+    }
+}
@@ -3,21 +3,32 @@ import javax.swing.border.Border;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * Implements https://www.youtube.com/watch?v=xjqTIzYkGdI except splitting (which seems like 2 players).
+ * Implements https://www.youtube.com/watch?v=xjqTIzYkGdI
  * Minor deviations:
- * 1. No split
- * 2. If table has an Ace, it is always counted as 11, while drawing card
- * 3. When it is table's turn, table must hit with a rank 16 or less
+ * 1. If table has an Ace, it is always counted as 11, while drawing card
+ * 2. When it is table's turn, table must hit with a rank 16 or less
  */
 public class BlackJack extends JFrame implements ActionListener {
 
-    // 4 aces, 4 2's, and 3 3's -> 11 cards, rank = 4 + 8 + 9 = 21
-    final static int MAX_CARDS = 11;
+    final static int MAX_CARDS = BlackJackEngine.MAX_CARDS;
+
+    // -Dblackjack.startup prints when the first table was shown, "exit" quits then (a startup benchmark)
+    private static final String STARTUP = System.getProperty("blackjack.startup");
 
     // at lower action panel
     final JButton btnDeal = new JButton("Deal");
@@ -27,64 +38,80 @@ public class BlackJack extends JFrame implements ActionListener {
     final JButton btnDoubleDown = new JButton("Double Down");
     final JButton btnHit = new JButton("Hit");
     final JButton btnStay = new JButton("Stay");
+    final JButton btnSplit = new JButton("Split");
     final JButton btnRestart = new JButton("Restart");
     final JButton btnExit = new JButton("Exit");
+    final JToggleButton btnHint = new JToggleButton("Hint");
 
     // on the left, show the deck(s)
     final JLabel lblServingDeck = new JLabel();
     final JLabel lblServingDeckSize = new JLabel("Serving Deck: 52 Cards");
     final JLabel lblBackupDeck = new JLabel();
     final JLabel lblBackupDeckSize = new JLabel("Backup Deck: 0 Cards");
+    final JLabel lblCounts = new JLabel();
 
     // on the right, show earning and bidding
     final JLabel lblTableEarning = new JLabel("Table Earning: 0");
     final JLabel lblBid = new JLabel("Bid: ");
     final JTextField txtBidAmount = new JTextField("100");
-    final JLabel lblPlayerEarning = new JLabel("Player Earning: 0");
+    final JLabel lblPlayerEarning[];
+    final JLabel lblHint = new JLabel("");
 
-    // the main game table
-    final JLabel lblTableCard[] = new JLabel[MAX_CARDS];
-    final JLabel lblPlayerCard[] = new JLabel[MAX_CARDS];
-    final JLabel lblTableRank = new JLabel("Rank: ");
-    final JLabel lblPlayerRank = new JLabel("Rank: ");
-    final JLabel lblStatus = new JLabel("");
+    // the main game table, painted in one component
+    final TablePanel pnlTable;
 
     // a raised border
     final Border compoundBorder = BorderFactory.createCompoundBorder(
             BorderFactory.createRaisedBevelBorder(),
             BorderFactory.createLoweredBevelBorder());
 
-    // couple of images
-    final ImageIcon cardBackIcon = new ImageIcon(getClass().getResource("images/back.png"));
-    final ImageIcon winnerIcon = new ImageIcon(getClass().getResource("images/winner.jpeg"));
-    final ImageIcon noWinnerIcon = new ImageIcon(getClass().getResource("images/no_winner.jpg"));
-    final ImageIcon looserIcon = new ImageIcon(getClass().getResource("images/looser.jpg"));
-    final ImageIcon dealIcon = new ImageIcon(getClass().getResource("images/deal.png"));
-    final ImageIcon gameOnIcon = new ImageIcon(getClass().getResource("images/game_on_going.jpg"));
-    final ImageIcon insuredIcon = new ImageIcon(getClass().getResource("images/insured.png"));
-    final ImageIcon surrenderIcon = new ImageIcon(getClass().getResource("images/surrendered.png"));
-    final ImageIcon pickACardIcon = new ImageIcon(getClass().getResource("images/pick_a_card.png"));
-    final ImageIcon blackJackIcon = new ImageIcon(getClass().getResource("images/black_jack.png"));
-
-    // game objects....
-    // with UI, there is no sequential flow, every state needs to maintened
-    final Deck returnCardDeck = new Deck(); // returned card deck
-    final Deck servingCardDeck = new Deck(false, returnCardDeck); // the serving deck
-
-    final List<Card> tableCards = new ArrayList<>(); // cards table has
-    final List<Card> playerCards = new ArrayList<>(); // cards player has
-
-    int currentBid; // current bid
-    int tableEarning; // total earning for table
-    int playerEarning; // total earning for player
-    boolean purchasedInsurance; // did player earned insurance?
-
-    int tableRank; // table's total rank
-    int playerRank; // player's total rank
-    boolean tableHasAce; // does the table has an ace
-    boolean playerHasAce; // does the player has an ace
+    // the shoe's image
+    final ImageIcon cardBackIcon = ImageCache.get("back.png");
+
+    // icons already scaled to their label's size, cleared when the window is resized
+    final ScaledImageCache scaledImages = new ScaledImageCache(256);
+
+    // game rules and state, this window only draws it
+    final BlackJackEngine engine;
+
+    // records the table with -Dblackjack.session=<directory>, otherwise null
+    final HandJournal journal;
+
+    // created when hints are turned on, used on the game thread
+    Advisor advisor;
+    final CardCounter counter; // of the shoe, on the game thread
+    volatile boolean hints;
+
+    // the engine is only played on this thread, the window only draws the views it makes
+    final ExecutorService game = Executors.newSingleThreadExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "blackjack-game");
+        thread.setDaemon(true);
+        return thread;
+    });
+    final AtomicReference<TableView> pending = new AtomicReference<>(); // made, not drawn yet
+    TableView shown; // on screen, null to draw everything again
+    boolean started; // the first view was drawn, on the event dispatch thread
 
     public BlackJack() {
+        this(1);
+    }
+
+    public BlackJack(final int seats) {
+        this(openSession(seats), seats);
+    }
+
+    // a resumed table keeps the seats it had
+    private BlackJack(final HandJournal journal, final int tableSeats) {
+        this.journal = journal;
+        engine = journal != null
+                ? journal.getEngine()
+                : new BlackJackEngine(RuleSet.DEFAULT, tableSeats, RandomSource.SPLITTABLE.create());
+        engine.setLedger(Ledger.DEFAULT);
+        final int seats = engine.getSeats();
+        counter = CardCounter.attach(engine);
+        lblPlayerEarning = new JLabel[seats];
+        pnlTable = new TablePanel(seats, scaledImages);
+
         // Prepare the UI
         setTitle("BlackJack");
         setSize(1536, 768);
@@ -104,8 +131,10 @@ public class BlackJack extends JFrame implements ActionListener {
         pnlActions.add(btnDoubleDown);
         pnlActions.add(btnHit);
         pnlActions.add(btnStay);
+        pnlActions.add(btnSplit);
         pnlActions.add(btnRestart);
         pnlActions.add(btnExit);
+        pnlActions.add(btnHint);
 
         btnDeal.addActionListener(this);
         btnInsurance.addActionListener(this);
@@ -114,8 +143,10 @@ public class BlackJack extends JFrame implements ActionListener {
         btnDoubleDown.addActionListener(this);
         btnHit.addActionListener(this);
         btnStay.addActionListener(this);
+        btnSplit.addActionListener(this);
         btnRestart.addActionListener(this);
         btnExit.addActionListener(this);
+        btnHint.addActionListener(this);
 
         pnlMain.add(pnlActions, BorderLayout.PAGE_END);
 
@@ -126,6 +157,7 @@ public class BlackJack extends JFrame implements ActionListener {
         pnlDecks.add(lblServingDeckSize);
         pnlDecks.add(lblBackupDeck);
         pnlDecks.add(lblBackupDeckSize);
+        pnlDecks.add(lblCounts);
 
         pnlMain.add(pnlDecks, BorderLayout.LINE_START);
 
@@ -139,515 +171,305 @@ public class BlackJack extends JFrame implements ActionListener {
         pnlEarning.setBorder(compoundBorder);
         pnlEarning.add(lblTableEarning);
         pnlEarning.add(pnlBid);
-        pnlEarning.add(lblPlayerEarning);
-
-        pnlMain.add(pnlEarning, BorderLayout.LINE_END);
-
-        final JPanel pnlTableCards = new JPanel();
-        pnlTableCards.setLayout(new GridLayout(1, 0));
-        pnlTableCards.setBorder(BorderFactory.createRaisedBevelBorder());
-        final JPanel pnlPlayerCards = new JPanel();
-        pnlPlayerCards.setLayout(new GridLayout(1, 0));
-        pnlPlayerCards.setBorder(compoundBorder);
-        for (int i = 0; i < MAX_CARDS; i++) {
-            lblTableCard[i] = new JLabel();
-            lblPlayerCard[i] = new JLabel();
-
-            lblTableCard[i].setBorder(BorderFactory.createRaisedBevelBorder());
-            lblPlayerCard[i].setBorder(BorderFactory.createRaisedBevelBorder());
-
-            lblTableCard[i].setHorizontalAlignment(SwingConstants.CENTER);
-            lblTableCard[i].setVerticalAlignment(SwingConstants.CENTER);
-            lblPlayerCard[i].setHorizontalAlignment(SwingConstants.CENTER);
-            lblPlayerCard[i].setVerticalAlignment(SwingConstants.CENTER);
-
-            pnlTableCards.add(lblTableCard[i]);
-            pnlPlayerCards.add(lblPlayerCard[i]);
+        for (int seat = 0; seat < seats; seat++) {
+            lblPlayerEarning[seat] = new JLabel();
+            pnlEarning.add(lblPlayerEarning[seat]);
         }
-        pnlTableCards.add(lblTableRank);
-        pnlPlayerCards.add(lblPlayerRank);
+        pnlEarning.add(lblHint);
 
-        final JPanel pnlGame = new JPanel();
-        pnlGame.setLayout(new GridLayout(0, 1));
-        pnlGame.setBorder(compoundBorder);
-        pnlGame.add(pnlTableCards);
-        pnlGame.add(lblStatus);
-        pnlGame.add(pnlPlayerCards);
-        lblStatus.setVerticalAlignment(SwingConstants.CENTER);
-        lblStatus.setHorizontalAlignment(SwingConstants.CENTER);
+        pnlMain.add(pnlEarning, BorderLayout.LINE_END);
 
-        pnlMain.add(pnlGame, BorderLayout.CENTER);
+        pnlTable.setBorder(compoundBorder);
+        pnlMain.add(pnlTable, BorderLayout.CENTER);
 
         setContentPane(pnlMain);
         setVisible(true);
 
-        // shuffle the serving deck
-        servingCardDeck.shuffle();
+        // labels and cards have a new size, scale the images again
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(final ComponentEvent e) {
+                scaledImages.clear();
+                shown = null;
+                game.execute(BlackJack.this::render);
+            }
+        });
+
+        // the journal is forced once more on exit, after the action being played
+        if (journal != null) {
+            addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowClosing(final WindowEvent e) {
+                    try {
+                        game.submit(() -> {
+                            journal.close();
+                            return null;
+                        }).get();
+                    } catch (final InterruptedException | ExecutionException ex) {
+                        System.err.println("Journal not closed: " + ex.getMessage());
+                    }
+                }
+            });
+        }
 
         // set up the "deal" scenario
-        setDealState();
+        game.execute(this::render);
+        // after the first view, so that the simulation does not slow the window down
+        game.execute(() -> estimateBaseEdge(counter, engine.getRules()));
     }
 
-    private static void fitImageToLabel(final JLabel label, final ImageIcon icon) {
-        final ImageIcon resizedIcon = new ImageIcon(icon.getImage().getScaledInstance(label.getWidth(), label.getHeight(), Image.SCALE_DEFAULT));
-        label.setIcon(resizedIcon);
-        label.setText(null);
+    // the table of the session directory, resumed where it stopped, null without a session
+    static HandJournal openSession(final int seats) {
+        final String session = System.getProperty("blackjack.session");
+        if (session == null) {
+            return null;
+        }
+        final Path journalFile = Paths.get(session, "table.journal");
+        final Path snapshotFile = Paths.get(session, "table.snapshot");
+        try {
+            Files.createDirectories(journalFile.getParent());
+            final HandJournal journal = Files.exists(journalFile)
+                    ? HandJournal.resume(journalFile, snapshotFile)
+                    : HandJournal.create(journalFile, RuleSet.DEFAULT, seats, RandomSource.REPLAYABLE, System.nanoTime());
+            journal.enableSnapshots(snapshotFile, 10);
+            return journal;
+        } catch (final IOException | RuntimeException e) {
+            // play without a session rather than not at all
+            System.err.println("Session " + session + " not opened: " + e.getMessage());
+            return null;
+        }
     }
 
-    private void setDealState() {
-        currentBid = 0;
-        txtBidAmount.setText("100"); // default bid is 100
-        txtBidAmount.setEnabled(true);
-
-        // except exit and deal button, disable all other buttons
-        setActionPanelState(true);
-
-        // show that "deal" image
-        fitImageToLabel(lblStatus, dealIcon);
+    // the edge of basic strategy off the top, in the background: simulated on the first start with the rules, outside
+    // of the table's metrics, then read from a file
+    private static void estimateBaseEdge(final CardCounter counter, final RuleSet rules) {
+        final Thread thread = new Thread(() -> counter.setBaseEdge(Simulator.baseEdge(rules)), "blackjack-edge");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
 
-        // set all card places on the table with "pick a card" image
-        for (int i = 0; i < MAX_CARDS; i++) {
-            fitImageToLabel(lblTableCard[i], pickACardIcon);
-            fitImageToLabel(lblPlayerCard[i], pickACardIcon);
+    // a player waits seconds between clicks, every action can be forced to disk (on the game thread)
+    private void commitSession() {
+        if (journal == null) {
+            return;
         }
+        try {
+            journal.commit();
+        } catch (final IOException e) {
+            System.err.println("Journal not written: " + e.getMessage());
+        }
+    }
 
-        // game has not started -> no insurance, no ace dealt, ranks are 0
-        purchasedInsurance = false;
-        tableHasAce = playerHasAce = false;
-        playerRank = tableRank = 0;
+    private void fitImageToLabel(final JLabel label, final ImageIcon icon) {
+        final long start = Metrics.start();
+        label.setIcon(scaledImages.get(icon, label.getWidth(), label.getHeight()));
+        label.setText(null);
+        Metrics.PAINT.recordSince(start);
+    }
 
-        // draw card (left), earning (right), empty ranks
-        drawCardPanel();
-        drawEarningPanel();
-        lblTableRank.setText("Rank: ");
-        lblPlayerRank.setText("Rank: ");
+    // on the game thread: runs the action, draws the table after it
+    private void play(final Runnable action) {
+        setActionsEnabled(false);
+        game.execute(() -> {
+            try {
+                action.run();
+            } catch (final IllegalStateException e) {
+                // a click queued before the previous action disabled its button, nothing to do
+            }
+            render();
+            commitSession();
+        });
     }
 
     // when user clicks "Deal" button
     private void handlePostDealState() {
         final String bidAmount = txtBidAmount.getText();
-
-        try {
-            // first make sure that the bid is valid
-            currentBid = Integer.valueOf(bidAmount);
-            if (currentBid == 0) {
-                throw new NumberFormatException("0 bid is not allowed!");
-            } else if (currentBid < 0) {
-                throw new NumberFormatException("Negative bid is not allowed!");
-            } else if (currentBid % 2 != 0) {
-                throw new NumberFormatException("Bid must be even!");
-            }
-
-            // disable the bid area, so that it cannot be changed throughout the game
-            txtBidAmount.setEnabled(false);
-
-            // deal 2 cards
-            for (int i = 0; i < 2; i++) {
-                // add to player
-                final Card playerCard = servingCardDeck.take();
-                fitImageToLabel(lblPlayerCard[i], playerCard.getIcon());
-                playerCards.add(playerCard);
-                if (playerCard.getRank().equals(Rank.Ace)) {
-                    playerHasAce = true;
-                }
-                playerRank += playerCard.getRank().getNumericValue();
-
-                // add to table
-                final Card tableCard = servingCardDeck.take();
-                if (i == 0) {
-                    fitImageToLabel(lblTableCard[i], tableCard.getIcon());
-                } else {
-                    fitImageToLabel(lblTableCard[i], cardBackIcon);
-                }
-                tableCards.add(tableCard);
-                if (tableCard.getRank().equals(Rank.Ace)) {
-                    tableHasAce = true;
-                }
-                tableRank += tableCard.getRank().getNumericValue();
+        play(() -> {
+            try {
+                // the engine makes sure that the bid is valid
+                engine.deal(Integer.valueOf(bidAmount));
+            } catch (final IllegalArgumentException e) {
+                // if the bid is not valid, show an error message and do nothing
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this, e.getMessage(), "Invalid Bid",
+                        JOptionPane.INFORMATION_MESSAGE));
             }
+        });
+    }
 
-            final int playerScore = computePlayerScore();
-            if (playerScore == 21) {
-                final int tableScore = computeTableScore();
-                if (tableScore == 21) {
-                    // no winner
-                    fitImageToLabel(lblStatus, noWinnerIcon);
-                } else {
-                    // black jack
-                    // twice the earning
-                    fitImageToLabel(lblStatus, blackJackIcon);
-                    tableEarning -= 2 * currentBid;
-                    playerEarning += 2 * currentBid;
-                }
-                // draw player and table ranks
-                drawPlayerRank();
-                fitImageToLabel(lblTableCard[tableCards.size() - 1],
-                        tableCards.get(tableCards.size() - 1).getIcon());
-                drawTableRank();
-
-                // update earning
-                drawEarningPanel();
-                // setup scene to restart game
-                setActionPanelStateToRestart();
-            } else {
-                // turn on insurance, surrender, and proceed
-                // turn off deal (as deal is complete)
-                setActionPanelState(false);
-
-                // draw player's rank, but not table's
-                drawPlayerRank();
-
-                // update card panel
-                drawCardPanel();
-                //drawEarningPanel();
-
-                // game is on...
-                fitImageToLabel(lblStatus, gameOnIcon);
-            }
-        } catch (final Exception e) {
-            // if the bid is not valid, show an error message and do nothing
-            JOptionPane.showMessageDialog(this, e.getMessage(), "Invalid Bid", JOptionPane.INFORMATION_MESSAGE);
+    // on the game thread: the view replaces any not drawn yet, so the window draws once per batch
+    private void render() {
+        final TableView view = TableView.of(engine, hints ? advisor().advise(engine, counter) : null, counter);
+        prescale(view);
+        if (pending.getAndSet(view) == null) {
+            SwingUtilities.invokeLater(() -> apply(pending.getAndSet(null)));
         }
     }
 
-    // player wants to purchase insurance
-    private void handleInsurance() {
-        // mark that insurance has been purchased
-        purchasedInsurance = true;
-        txtBidAmount.setText(Integer.toString(currentBid) + " (Insured)");
-
-        // with insurance, the bid essentially doubles
-        // insurance is beneficial for player is table has 21
-        // and then table takes 1/2 and player keeps 1/2
-        // otherwise, the game continues, with double the bid
-        final int tableScore = computeTableScore();
-        if (tableScore == 21) {
-            // show both player's and table's ranks
-            drawPlayerRank();
-            fitImageToLabel(lblTableCard[tableCards.size() - 1],
-                    tableCards.get(tableCards.size() - 1).getIcon());
-            drawTableRank();
-
-            fitImageToLabel(lblStatus, insuredIcon);
-            tableEarning += currentBid;
-            playerEarning -= currentBid;
-
-            // update earning
-            drawEarningPanel();
-            // setup scene to restart game
-            setActionPanelStateToRestart();
-        } else {
-            // setup scene to main game
-            setActionPanelStateToMainGame();
+    private Advisor advisor() {
+        if (advisor == null) {
+            advisor = Advisor.forRules(engine.getRules());
         }
+        return advisor;
     }
 
-    // player wants to surrender
-    private void handleSurrender() {
-        // doesn't matter about the ranks, half of the bid
-        // goes to the table and half player keeps
-        // the game ends, and player can restart
-        drawPlayerRank();
-        fitImageToLabel(lblTableCard[tableCards.size() - 1],
-                tableCards.get(tableCards.size() - 1).getIcon());
-        fitImageToLabel(lblStatus, surrenderIcon);
-        drawTableRank();
-
-        tableEarning += currentBid / 2;
-        playerEarning -= currentBid / 2;
-
-        setActionPanelStateToRestart();
-        drawEarningPanel();
+    // on the game thread: scales the view's images, so that drawing it only finds them in the cache
+    // the sizes may be read while being laid out, a miss is then scaled when drawn
+    private void prescale(final TableView view) {
+        pnlTable.prepare(view);
+        prescale(lblServingDeck, servingDeckIcon(view));
+        prescale(lblBackupDeck, backupDeckIcon(view));
     }
 
-    // player wants to proceed to main game
-    // without insurance or surrender
-    private void handleProceed() {
-        // table checks it score
-        // if the score is 21, game ends there
-        // otherwise, the game continues
-        final int tableScore = computeTableScore();
-        if (tableScore == 21) {
-            drawPlayerRank();
-            fitImageToLabel(lblTableCard[tableCards.size() - 1],
-                    tableCards.get(tableCards.size() - 1).getIcon());
-            drawTableRank();
-            determineWinner();
-
-            setActionPanelStateToRestart();
-            drawEarningPanel();
-        } else {
-            setActionPanelStateToMainGame();
+    private void prescale(final JLabel label, final ImageIcon icon) {
+        if (icon != null) {
+            scaledImages.get(icon, label.getWidth(), label.getHeight());
         }
     }
 
-    // player wants to double down
-    private void handleDoubleDown() {
-        // bid doubles
-        currentBid *= 2;
-        txtBidAmount.setText(Integer.toString(currentBid) + (purchasedInsurance ? " (Insured)" : ""));
-
-        // one card is served to player
-        final Card playerCard = servingCardDeck.take();
-        fitImageToLabel(lblPlayerCard[playerCards.size()], playerCard.getIcon());
-        playerCards.add(playerCard);
-        if (playerCard.getRank().equals(Rank.Ace)) {
-            playerHasAce = true;
-        }
-        playerRank += playerCard.getRank().getNumericValue();
-
-        // redraw panels, determine winner based on the ranks
-        drawCardPanel();
-        drawPlayerRank();
-        fitImageToLabel(lblTableCard[tableCards.size() - 1],
-                tableCards.get(tableCards.size() - 1).getIcon());
-        drawTableRank();
-        determineWinner();
-
-        setActionPanelStateToRestart();
-        drawEarningPanel();
-    }
+    // draws the view on the event dispatch thread, only what differs from the view on screen
+    private void apply(final TableView view) {
+        final TableView shown = this.shown;
+        this.shown = view;
 
-    // player wants one card (Hit)
-    private void handleHit() {
-        // player takes 1 card
-        final Card playerCard = servingCardDeck.take();
-        fitImageToLabel(lblPlayerCard[playerCards.size()], playerCard.getIcon());
-        playerCards.add(playerCard);
-        if (playerCard.getRank().equals(Rank.Ace)) {
-            playerHasAce = true;
+        for (final Action action : Action.values()) {
+            button(action).setEnabled(view.enabled.contains(action));
         }
-        playerRank += playerCard.getRank().getNumericValue();
-
-        drawCardPanel();
-        drawPlayerRank();
-        btnDoubleDown.setEnabled(false);
-
-        // if player goes over 21, please is the loser
-        if (playerRank > 21) {
-            fitImageToLabel(lblTableCard[tableCards.size() - 1],
-                    tableCards.get(tableCards.size() - 1).getIcon());
-            drawTableRank();
-            determineWinner();
-
-            setActionPanelStateToRestart();
-            drawEarningPanel();
+        txtBidAmount.setEnabled(view.bidEditable);
+        if (shown == null || TableView.changed(shown.bid, view.bid)) {
+            txtBidAmount.setText(view.bid);
         }
-    }
-
-    // player wants to stay
-    private void handleStay() {
-        // then it is table's turn (to hit or stay, through the logic is different)
-        // a winner/loose/... is decided
-        // and game ends there
-        tableTurn();
-        drawCardPanel();
-        drawPlayerRank();
-        drawTableRank();
-        determineWinner();
-        setActionPanelStateToRestart();
-        drawEarningPanel();
-    }
-
-    // logic to handle table's turn
-    private void tableTurn() {
-        fitImageToLabel(lblTableCard[tableCards.size() - 1],
-                tableCards.get(tableCards.size() - 1).getIcon());
-
-        // if table's rank is less than or 16, it continues to draw a card
-        // otherwise stays
-        // for this assume ace is 11
-        // finally, a winner/loser is decided and game ends
-        int tableRankFinal = tableRank + (tableHasAce ? 10 : 0);
-        for (int i = 2  ; i < MAX_CARDS && tableRankFinal <= 16; i++) {
-            final Card tableCard = servingCardDeck.take();
-            fitImageToLabel(lblTableCard[i], tableCard.getIcon());
-            tableCards.add(tableCard);
-
-            if (!tableHasAce && tableCard.getRank().equals(Rank.Ace)) {
-                tableHasAce = true;
-                tableRankFinal += 10;
+        if (shown == null) {
+            pnlTable.reset();
+        }
+        pnlTable.setView(view);
+
+        // draw card (left), earning (right)
+        draw(lblServingDeck, shown == null ? null : servingDeckIcon(shown), servingDeckIcon(view));
+        draw(lblBackupDeck, shown == null ? null : backupDeckIcon(shown), backupDeckIcon(view));
+        lblServingDeckSize.setText(view.servingDeckSize);
+        lblBackupDeckSize.setText(view.backupDeckSize);
+        if (shown == null || TableView.changed(shown.counts, view.counts)) {
+            lblCounts.setText(view.counts);
+        }
+        for (int seat = 0; seat < view.hands.length; seat++) {
+            lblPlayerEarning[seat].setText(view.playerEarning[seat]);
+        }
+        lblTableEarning.setText(view.tableEarning);
+        drawHint(view.hint);
+        if (!started) {
+            started = true;
+            if (STARTUP != null) {
+                reportStartup();
             }
-            tableRank += tableCard.getRank().getNumericValue();
-            tableRankFinal += tableCard.getRank().getNumericValue();
         }
     }
 
-    // determines winner or loser
-    private void determineWinner() {
-        final int playerScore = computePlayerScore();
-        final int tableScore = computeTableScore();
-
-        // bid is double, if insurance was purchased
-        final int bid = currentBid * (purchasedInsurance ? 2 : 1);
-
-        if (playerScore > 21) {
-            // if player score is > 21, doesn't matter what is the
-            // score of the table, player loses
-            tableEarning += bid;
-            playerEarning -= bid;
-            lblTableEarning.setText("Table Earning: " + tableEarning);
-            fitImageToLabel(lblStatus, looserIcon);
-        } else if (tableScore > 21) {
-            // else, if table went overboard, player is the winner
-            tableEarning -= bid;
-            playerEarning += bid;
-            lblPlayerEarning.setText("Player Earning: " + playerEarning);
-            fitImageToLabel(lblStatus, winnerIcon);
-        } else if (playerScore == tableScore) {
-            // both are less than 21, but same score, no winner
-            fitImageToLabel(lblStatus, noWinnerIcon);
-        } else if (playerScore > tableScore) {
-            // player has the higher score, player wins winner
-            tableEarning -= bid;
-            playerEarning += bid;
-            lblPlayerEarning.setText("Player Earning: " + playerEarning);
-            fitImageToLabel(lblStatus, winnerIcon);
-        } else { // if (tableScore > playerScore) ...
-            // table has higher score, so player is the loser
-            tableEarning += bid;
-            playerEarning -= bid;
-            lblTableEarning.setText("Table Earning: " + tableEarning);
-            fitImageToLabel(lblStatus, looserIcon);
-        }
+    // queued behind the table's repaint, so it runs once the table is on screen
+    private static void reportStartup() {
+        SwingUtilities.invokeLater(() -> {
+            System.out.printf("Table shown %d ms after the JVM started%n", ManagementFactory.getRuntimeMXBean().getUptime());
+            if (STARTUP.equals("exit")) {
+                System.exit(0);
+            }
+        });
     }
 
-    private int computePlayerScore() {
-        if (playerHasAce) {
-            return (playerRank + 10) > 21 ? playerRank : playerRank + 10;
-        } else {
-            return playerRank;
+    // shown is what the label had, null to draw it anyway
+    private void draw(final JLabel label, final ImageIcon shown, final ImageIcon icon) {
+        if (shown != null && shown == icon) {
+            return;
         }
-    }
-
-    private int computeTableScore() {
-        if (tableHasAce) {
-            return  (tableRank + 10) > 21 ? tableRank : tableRank + 10;
+        if (icon == null) {
+            label.setIcon(null);
         } else {
-            return tableRank;
+            fitImageToLabel(label, icon);
         }
     }
 
-    // player wants to start a new game
-    private void handleRestart() {
-        // return player and table's card return deck
-        returnCardDeck.addCards(playerCards);
-        returnCardDeck.addCards(tableCards);
-        playerCards.clear();
-        tableCards.clear();
-
-        // and setup the start scene
-        setDealState();
-    }
-
-    private void setActionPanelStateToMainGame() {
-        btnInsurance.setEnabled(false);
-        btnSurrender.setEnabled(false);
-        btnProceed.setEnabled(false);
-        btnDoubleDown.setEnabled(true);
-        btnHit.setEnabled(true);
-        btnStay.setEnabled(true);
+    private ImageIcon servingDeckIcon(final TableView view) {
+        return view.servingDeck ? cardBackIcon : null;
     }
 
-    private void setActionPanelStateToRestart() {
-        btnDeal.setEnabled(false);
-        btnInsurance.setEnabled(false);
-        btnSurrender.setEnabled(false);
-        btnProceed.setEnabled(false);
-        btnDoubleDown.setEnabled(false);
-        btnHit.setEnabled(false);
-        btnStay.setEnabled(false);
-        btnRestart.setEnabled(true);
+    private ImageIcon backupDeckIcon(final TableView view) {
+        return view.backupTop != null ? view.backupTop.getIcon() : null;
     }
 
-    private void setActionPanelState(final boolean deal) {
-        btnDeal.setEnabled(deal);
-        btnInsurance.setEnabled(!deal);
-        btnSurrender.setEnabled(!deal);
-        btnProceed.setEnabled(!deal);
-        btnDoubleDown.setEnabled(false);
-        btnHit.setEnabled(false);
-        btnStay.setEnabled(false);
-        btnRestart.setEnabled(false);
-    }
-
-    private void drawCardPanel() {
-        lblServingDeckSize.setText("Serving Deck: " + servingCardDeck.size() + " Cards");
-        lblBackupDeckSize.setText("Backup Deck: " + returnCardDeck.size() + " Cards");
-
-        if (servingCardDeck.size() > 0) {
-            fitImageToLabel(lblServingDeck, cardBackIcon);
-        } else {
-            lblServingDeck.setIcon(null);
+    // in hint mode, the suggested action becomes the default button (Enter) and is named
+    private void drawHint(final Action hint) {
+        if (hint == null) {
+            lblHint.setText("");
+            getRootPane().setDefaultButton(null);
+            return;
         }
-        if (returnCardDeck.size() > 0) {
-            fitImageToLabel(lblBackupDeck, returnCardDeck.peak().getIcon());
-        } else {
-            lblBackupDeck.setIcon(null);
-        }
-    }
-
-    private void drawEarningPanel() {
-        lblPlayerEarning.setText("Player Earning: " + playerEarning);
-        lblTableEarning.setText("Table Earning: " + tableEarning);
+        final JButton button = button(hint);
+        lblHint.setText("Hint: " + button.getText());
+        getRootPane().setDefaultButton(button);
     }
 
-    private void drawPlayerRank() {
-        final String rank;
-        if (playerHasAce) {
-            if ((playerRank + 10) > 21) {
-                rank = "" + playerRank;
-            } else {
-                rank = "" + playerRank + " OR " + (playerRank + 10);
-            }
-        } else {
-            rank = "" + playerRank;
+    private JButton button(final Action action) {
+        switch (action) {
+            case INSURANCE:
+                return btnInsurance;
+            case SURRENDER:
+                return btnSurrender;
+            case PROCEED:
+                return btnProceed;
+            case DOUBLE_DOWN:
+                return btnDoubleDown;
+            case HIT:
+                return btnHit;
+            case STAY:
+                return btnStay;
+            case SPLIT:
+                return btnSplit;
+            case RESTART:
+                return btnRestart;
+            default:
+                return btnDeal;
         }
-
-        lblPlayerRank.setText("Rank: " + rank);
     }
 
-    private void drawTableRank() {
-        final String rank;
-        if (tableHasAce) {
-            if ((tableRank + 10) > 21) {
-                rank = "" + (tableRank + 10);
-            } else {
-                rank = "" + playerRank + " OR " + (playerRank + 10);
-            }
-        } else {
-            rank = "" + tableRank;
+    // until the action's view is drawn, so that a second click does not act on the old table
+    private void setActionsEnabled(final boolean enabled) {
+        for (final Action action : Action.values()) {
+            button(action).setEnabled(enabled);
         }
-
-        lblTableRank.setText("Rank: " + rank);
     }
 
-    // action handlers
+    // action handlers, the game runs on its own thread
     @Override
     public void actionPerformed(ActionEvent e) {
         final Object source = e.getSource();
         if (source == btnDeal) {
             handlePostDealState();
         } else if (source == btnInsurance) {
-            handleInsurance();
+            play(engine::insure);
         } else if (source == btnSurrender) {
-            handleSurrender();
+            play(engine::surrender);
         } else if (source == btnProceed) {
-            handleProceed();
+            play(engine::proceed);
         } else if (source == btnDoubleDown) {
-            handleDoubleDown();
+            play(engine::doubleDown);
         } else if (source == btnHit) {
-            handleHit();
+            play(engine::hit);
         } else if (source == btnStay) {
-            handleStay();
+            play(engine::stay);
+        } else if (source == btnSplit) {
+            play(engine::split);
+        } else if (source == btnHint) {
+            hints = btnHint.isSelected();
+            game.execute(this::render);
         } else if (source == btnRestart) {
-            handleRestart();
+            play(engine::restart);
         } else if (source == btnExit) {
             this.dispatchEvent(new WindowEvent(this, WindowEvent.WINDOW_CLOSING));
         }
     }
 
+    // usage: BlackJack [seats], -Dblackjack.session=<directory> to keep and resume the table
     public static void main(String[] args) {
-        new BlackJack();
+        Metrics.register();
+        new BlackJack(args.length > 0 ? Integer.parseInt(args[0]) : 1);
     }
 }
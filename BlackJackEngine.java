@@ -0,0 +1,849 @@
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * The rules of {@link BlackJack} without any UI, so that a hand can be played
+ * by plain method calls (by the window, or by a batch runner at full CPU speed).
+ * <p>
+ * Up to {@link #MAX_SEATS} seats play a round against the table from one shoe. Cards are dealt
+ * round robin, every seat acts on its own hand, and when no seat has anything left to do,
+ * the table plays once and all waiting seats are settled together.
+ * Actions without a seat index act on the current seat (the first one that has to act),
+ * so a one seat table is played exactly like before.
+ * <p>
+ * A pair can be split into up to {@link #MAX_HANDS} hands, which are played one after the other.
+ * Hands come from a pool allocated with the seat, and are settled with the other seats.
+ * Every action returns the outcome of the seat's hand, which is {@link Outcome#IN_PROGRESS}
+ * until the hand is decided.
+ * <p>
+ * Payouts, surrender, insurance, the table's draw rule and the split rules come from a {@link RuleSet}.
+ * Every action, card, shuffle, payout and outcome is reported to a {@link GameListener}.
+ */
+public class BlackJackEngine {
+
+    // 4 aces, 4 2's, and 3 3's -> 11 cards, rank = 4 + 8 + 9 = 21
+    public final static int MAX_CARDS = 11;
+
+    public final static int MAX_SEATS = 7;
+
+    // hands a seat can have after splitting (and re-splitting)
+    public final static int MAX_HANDS = 4;
+
+    public enum State {
+        DEAL, // waiting for a bid
+        OFFER, // cards are dealt, player may buy insurance, surrender or proceed
+        PLAY, // player may double down, hit or stay
+        WAITING, // player is done, waiting for the other seats and the table
+        FINISHED // hand is decided, waiting for restart
+    }
+
+    // with UI, there is no sequential flow, every state needs to maintened
+    final Deck returnCardDeck; // returned card deck
+    final Deck servingCardDeck; // the serving deck (a shoe, when more than 1 deck)
+
+    final List<Card> tableCards = new ArrayList<>(MAX_CARDS); // cards table has
+    int tableHand = HandValue.EMPTY; // table's hand value, see HandValue
+    long tableEarning; // total earning for table
+
+    final Seat[] seats;
+    State roundState = State.DEAL; // DEAL, PLAY while seats act, FINISHED
+
+    final RuleSet rules;
+    GameListener listener = GameListener.NONE;
+    private int samples; // timed sections, see sample()
+    private boolean metered = true; // see setMetered
+
+    // the round's payouts go to the ledger when it is finished, none unless set, see setLedger
+    private Ledger ledger;
+    private Ledger.Account tableAccount;
+    private Ledger.Account[] seatAccounts;
+    private final long[] unsettled; // per seat, paid this round
+
+    public BlackJackEngine() {
+        this(RuleSet.DEFAULT, 1, RandomSource.SPLITTABLE.create());
+    }
+
+    // a shoe of the given number of decks, reshuffled when penetration fraction of it is dealt
+    public BlackJackEngine(final int decks, final double penetration) {
+        this(decks, penetration, RandomSource.SPLITTABLE.create());
+    }
+
+    // shuffles with the given generator, a seeded one replays the same hands
+    public BlackJackEngine(final int decks, final double penetration, final RandomGenerator random) {
+        this(1, decks, penetration, random);
+    }
+
+    public BlackJackEngine(final int seats, final int decks, final double penetration, final RandomGenerator random) {
+        this(RuleSet.DEFAULT.toBuilder().decks(decks).penetration(penetration).build(), seats, random);
+    }
+
+    public BlackJackEngine(final RuleSet rules, final int seats, final RandomGenerator random) {
+        if (seats < 1 || seats > MAX_SEATS) {
+            throw new IllegalArgumentException("A table has 1 to " + MAX_SEATS + " seats!");
+        }
+        this.seats = new Seat[seats];
+        for (int i = 0; i < seats; i++) {
+            this.seats[i] = new Seat(i);
+        }
+        unsettled = new long[seats];
+
+        this.rules = rules;
+        returnCardDeck = new Deck(rules.getDecks(), true, null, random);
+        servingCardDeck = new Deck(rules.getDecks(), false, returnCardDeck, random);
+        servingCardDeck.setPenetration(rules.getPenetration());
+
+        // shuffle the serving deck
+        servingCardDeck.shuffle();
+    }
+
+    // opens the table's and seats' accounts in the ledger, with their balances; null (the default) keeps
+    // no ledger, so simulated and replayed tables never reach the cashier's
+    public void setLedger(final Ledger ledger) {
+        this.ledger = ledger;
+        if (ledger == null) {
+            tableAccount = null;
+            seatAccounts = null;
+            return;
+        }
+        tableAccount = ledger.openTable("Table " + Integer.toHexString(System.identityHashCode(this)));
+        seatAccounts = new Ledger.Account[seats.length];
+        for (int i = 0; i < seats.length; i++) {
+            seatAccounts[i] = ledger.openPlayer(tableAccount, tableAccount.getName() + " Player " + (i + 1));
+        }
+        postEarnings();
+    }
+
+    // the earnings so far as one batch, for new accounts (a table restored from a snapshot or replayed too)
+    private void postEarnings() {
+        for (int i = 0; i < seats.length; i++) {
+            unsettled[i] = seats[i].earning;
+        }
+        settleRound();
+    }
+
+    // false keeps the table's hands, timings and shuffles out of Metrics, for simulations in a process serving players
+    public void setMetered(final boolean metered) {
+        this.metered = metered;
+        servingCardDeck.setMetered(metered);
+        returnCardDeck.setMetered(metered);
+    }
+
+    // shoes shuffled ahead of time, taken at the cut card; the table can no longer be replayed from its seed
+    public void setShoePool(final ShoePool pool) {
+        servingCardDeck.setShoePool(pool);
+    }
+
+    public Ledger getLedger() {
+        return ledger;
+    }
+
+    public Ledger.Account getTableAccount() {
+        return tableAccount;
+    }
+
+    public Ledger.Account getPlayerAccount(final int seat) {
+        return seatAccounts[seat];
+    }
+
+    // events from the next action on, see HandJournal
+    public void setListener(final GameListener listener) {
+        this.listener = listener == null ? GameListener.NONE : listener;
+    }
+
+    // every seat bids the same
+    public Outcome deal(final int bid) {
+        final long start = sample();
+        checkRoundState(State.DEAL);
+        validateBid(bid);
+        for (final Seat seat : seats) {
+            listener.onAction(seat.index, Action.DEAL, bid);
+            seat.hands[0].bid = bid;
+        }
+        return recorded(Metrics.DEAL, start, dealRound());
+    }
+
+    // one bid per seat
+    public Outcome deal(final int[] bids) {
+        final long start = sample();
+        checkRoundState(State.DEAL);
+        if (bids.length != seats.length) {
+            throw new IllegalArgumentException("Expected " + seats.length + " bids!");
+        }
+        for (int i = 0; i < seats.length; i++) {
+            validateBid(bids[i]);
+        }
+        for (int i = 0; i < seats.length; i++) {
+            listener.onAction(i, Action.DEAL, bids[i]);
+            seats[i].hands[0].bid = bids[i];
+        }
+        return recorded(Metrics.DEAL, start, dealRound());
+    }
+
+    private void validateBid(final int bid) {
+        if (bid == 0) {
+            throw new IllegalArgumentException("0 bid is not allowed!");
+        } else if (bid < 0) {
+            throw new IllegalArgumentException("Negative bid is not allowed!");
+        } else if (bid % 2 != 0) {
+            throw new IllegalArgumentException("Bid must be even!");
+        } else if (bid * rules.getBlackJackPayoutNumerator() % rules.getBlackJackPayoutDenominator() != 0) {
+            throw new IllegalArgumentException("Bid must pay a whole black jack at "
+                    + rules.getBlackJackPayoutNumerator() + ":" + rules.getBlackJackPayoutDenominator() + "!");
+        }
+    }
+
+    // every seat gets 2 cards, so does the table
+    private Outcome dealRound() {
+        if (metered) {
+            Metrics.add(Metrics.HANDS, seats.length);
+        }
+        // deal 2 cards, round robin
+        for (int i = 0; i < 2; i++) {
+            for (final Seat seat : seats) {
+                dealTo(seat);
+            }
+            addTableCard(take(GameListener.TABLE, 0));
+        }
+        roundState = State.PLAY;
+
+        for (final Seat seat : seats) {
+            final Hand hand = seat.hands[0];
+            if (HandValue.isBlackJack(hand.value)) {
+                if (HandValue.isBlackJack(tableHand)) {
+                    // no winner
+                    finish(seat, hand, Outcome.PUSH);
+                } else {
+                    // black jack, paid by the rules (twice the bid by default)
+                    pay(seat, rules.blackJackPayout(hand.bid));
+                    finish(seat, hand, Outcome.BLACK_JACK);
+                }
+            } else {
+                // player may now buy insurance, surrender, or proceed
+                seat.state = State.OFFER;
+            }
+        }
+        return endRoundIfDone(current());
+    }
+
+    public Outcome insure() {
+        return insure(getCurrentSeat());
+    }
+
+    // player wants to purchase insurance
+    public Outcome insure(final int index) {
+        final long start = sample();
+        final Seat seat = seat(index, State.OFFER);
+        if (rules.getInsurance() == RuleSet.Insurance.NONE) {
+            throw new IllegalStateException("Insurance is not offered!");
+        }
+
+        // mark that insurance has been purchased
+        listener.onAction(index, Action.INSURANCE, 0);
+        seat.insured = true;
+        if (metered) {
+            Metrics.increment(Metrics.INSURED);
+        }
+
+        final int bid = seat.hand().bid;
+        if (rules.getInsurance() == RuleSet.Insurance.DOUBLE_BID) {
+            // with insurance, the bid essentially doubles
+            // insurance is beneficial for player is table has 21
+            // and then table takes 1/2 and player keeps 1/2
+            // otherwise, the game continues, with double the bid
+            if (HandValue.score(tableHand) == 21) {
+                pay(seat, -bid);
+                finish(seat, seat.hand(), Outcome.INSURED);
+            } else {
+                startPlay(seat);
+            }
+        } else {
+            // a side bet of half the bid, paid if the table has 21
+            // the bid itself is then lost, otherwise the side bet is
+            final int sideBet = bid / 2;
+            if (HandValue.score(tableHand) == 21) {
+                pay(seat, sideBet * rules.getInsurancePayout() - bid);
+                finish(seat, seat.hand(), Outcome.INSURED);
+            } else {
+                pay(seat, -sideBet);
+                startPlay(seat);
+            }
+        }
+        return recorded(Metrics.INSURE, start, endRoundIfDone(seat));
+    }
+
+    public Outcome surrender() {
+        return surrender(getCurrentSeat());
+    }
+
+    // player wants to surrender
+    public Outcome surrender(final int index) {
+        final long start = sample();
+        final Seat seat = seat(index, State.OFFER);
+        if (rules.getSurrender() == RuleSet.Surrender.NONE) {
+            throw new IllegalStateException("Surrender is not offered!");
+        }
+        listener.onAction(index, Action.SURRENDER, 0);
+
+        // late surrender comes after the table checks its score
+        if (rules.getSurrender() == RuleSet.Surrender.LATE && HandValue.score(tableHand) == 21) {
+            finish(seat, seat.hand(), determineWinner(seat, seat.hand()));
+            return recorded(Metrics.SURRENDER, start, endRoundIfDone(seat));
+        }
+
+        // doesn't matter about the ranks, half of the bid
+        // goes to the table and half player keeps
+        pay(seat, -seat.hand().bid / 2);
+        finish(seat, seat.hand(), Outcome.SURRENDERED);
+        return recorded(Metrics.SURRENDER, start, endRoundIfDone(seat));
+    }
+
+    public Outcome proceed() {
+        return proceed(getCurrentSeat());
+    }
+
+    // player wants to proceed to main game
+    // without insurance or surrender
+    public Outcome proceed(final int index) {
+        final long start = sample();
+        final Seat seat = seat(index, State.OFFER);
+        listener.onAction(index, Action.PROCEED, 0);
+
+        // table checks it score
+        // if the score is 21, game ends there
+        // otherwise, the game continues
+        if (HandValue.score(tableHand) == 21) {
+            finish(seat, seat.hand(), determineWinner(seat, seat.hand()));
+        } else {
+            startPlay(seat);
+        }
+        return recorded(Metrics.PROCEED, start, endRoundIfDone(seat));
+    }
+
+    public Outcome doubleDown() {
+        return doubleDown(getCurrentSeat());
+    }
+
+    // player wants to double down
+    public Outcome doubleDown(final int index) {
+        final long start = sample();
+        final Seat seat = seat(index, State.PLAY);
+        final Hand hand = seat.hand();
+        if (!canDoubleDown(hand)) {
+            throw new IllegalStateException("Double down is only allowed before the first hit!");
+        }
+        listener.onAction(index, Action.DOUBLE_DOWN, 0);
+
+        // bid doubles, one card is served to player
+        // and the hand waits for the table
+        hand.bid *= 2;
+        dealTo(seat);
+        if (HandValue.isBust(hand.value)) {
+            finish(seat, hand, determineWinner(seat, hand));
+        } else {
+            hand.state = State.WAITING;
+        }
+        return recorded(Metrics.DOUBLE_DOWN, start, nextHand(seat));
+    }
+
+    public Outcome hit() {
+        return hit(getCurrentSeat());
+    }
+
+    // player wants one card (Hit)
+    public Outcome hit(final int index) {
+        final long start = sample();
+        final Seat seat = seat(index, State.PLAY);
+        final Hand hand = seat.hand();
+        if (!canHit(hand)) {
+            throw new IllegalStateException("A split ace gets only one card!");
+        }
+        listener.onAction(index, Action.HIT, 0);
+
+        dealTo(seat);
+        hand.canDoubleDown = false;
+
+        // if player goes over 21, player is the loser
+        if (HandValue.isBust(hand.value)) {
+            finish(seat, hand, determineWinner(seat, hand));
+            return recorded(Metrics.HIT, start, nextHand(seat));
+        }
+        return recorded(Metrics.HIT, start, hand.outcome);
+    }
+
+    public Outcome stay() {
+        return stay(getCurrentSeat());
+    }
+
+    // player wants to stay
+    public Outcome stay(final int index) {
+        final long start = sample();
+        final Seat seat = seat(index, State.PLAY);
+        listener.onAction(index, Action.STAY, 0);
+
+        // then it is the next hand's turn, and table's turn (to hit or stay,
+        // through the logic is different) once every seat is done
+        seat.hand().state = State.WAITING;
+        return recorded(Metrics.STAY, start, nextHand(seat));
+    }
+
+    public Outcome split() {
+        return split(getCurrentSeat());
+    }
+
+    // player splits a pair into 2 hands, each with the same bid
+    public Outcome split(final int index) {
+        final long start = sample();
+        final Seat seat = seat(index, State.PLAY);
+        if (!canSplit(seat)) {
+            throw new IllegalStateException("Only a pair can be split, up to " + rules.getMaxHands() + " hands!");
+        }
+        listener.onAction(index, Action.SPLIT, 0);
+
+        // the second card starts a new hand, played after this one
+        final Hand hand = seat.hand();
+        hand.splitInto(seat.insertHand());
+        dealTo(seat);
+        hand.canDoubleDown = rules.isDoubleAfterSplit();
+        if (mustStand(seat, hand)) {
+            hand.state = State.WAITING;
+            return recorded(Metrics.SPLIT, start, nextHand(seat));
+        }
+        return recorded(Metrics.SPLIT, start, hand.outcome);
+    }
+
+    // moves to the seat's next split hand, or ends the seat's turn
+    private Outcome nextHand(final Seat seat) {
+        final Hand played = seat.hand();
+        while (seat.current + 1 < seat.handCount) {
+            seat.current++;
+
+            // split hands get their second card when they are played
+            final Hand hand = seat.hand();
+            dealTo(seat);
+            hand.canDoubleDown = rules.isDoubleAfterSplit();
+            if (!mustStand(seat, hand)) {
+                return played.outcome;
+            }
+            hand.state = State.WAITING;
+        }
+
+        seat.state = State.FINISHED;
+        for (int i = 0; i < seat.handCount; i++) {
+            if (seat.hands[i].state == State.WAITING) {
+                seat.state = State.WAITING;
+            }
+        }
+        endRoundIfDone(seat);
+        return played.outcome;
+    }
+
+    private boolean canSplit(final Seat seat) {
+        final Hand hand = seat.hand();
+        return hand.state == State.PLAY
+                && hand.cards.size() == 2
+                && hand.cards.get(0).getRank() == hand.cards.get(1).getRank()
+                && seat.handCount < rules.getMaxHands()
+                && (!hand.isSplitAces() || rules.isResplitAces());
+    }
+
+    private boolean canHit(final Hand hand) {
+        return !hand.isSplitAces() || rules.isHitSplitAces();
+    }
+
+    private boolean canDoubleDown(final Hand hand) {
+        return hand.state == State.PLAY && hand.canDoubleDown && canHit(hand);
+    }
+
+    // a split ace with its one card, unless it can be split again
+    private boolean mustStand(final Seat seat, final Hand hand) {
+        return !canHit(hand) && !canSplit(seat);
+    }
+
+    // player wants to start a new game
+    public void restart() {
+        final long start = sample();
+        checkRoundState(State.FINISHED);
+        listener.onAction(GameListener.TABLE, Action.RESTART, 0);
+
+        // return players' and table's cards to return deck
+        for (final Seat seat : seats) {
+            seat.clear(returnCardDeck);
+        }
+        returnCardDeck.addCards(tableCards);
+        tableCards.clear();
+        tableHand = HandValue.EMPTY;
+
+        // the cut card came out during the hand, shuffle the returned cards back into the shoe (or take a pooled one)
+        if (servingCardDeck.isCutCardReached()) {
+            servingCardDeck.refill();
+            listener.onShuffle(servingCardDeck.size());
+        }
+
+        roundState = State.DEAL;
+        Metrics.RESTART.recordSince(start);
+    }
+
+    // performs an action by name on the current seat, bid is only used to deal
+    public Outcome apply(final Action action, final int bid) {
+        switch (action) {
+            case DEAL:
+                return deal(bid);
+            case INSURANCE:
+                return insure();
+            case SURRENDER:
+                return surrender();
+            case PROCEED:
+                return proceed();
+            case DOUBLE_DOWN:
+                return doubleDown();
+            case HIT:
+                return hit();
+            case STAY:
+                return stay();
+            case SPLIT:
+                return split();
+            case RESTART:
+                restart();
+                return getOutcome();
+            default:
+                throw new IllegalArgumentException("Unknown action: " + action);
+        }
+    }
+
+    // once no seat has to act, the table plays (if anyone waits for it) and the round is settled
+    private Outcome endRoundIfDone(final Seat seat) {
+        boolean waiting = false;
+        for (final Seat other : seats) {
+            if (other.state == State.OFFER || other.state == State.PLAY) {
+                return seat.hand().outcome;
+            }
+            waiting |= other.state == State.WAITING;
+        }
+
+        if (waiting) {
+            tableTurn();
+            settle();
+        }
+        roundState = State.FINISHED;
+        settleRound();
+        return seat.hand().outcome;
+    }
+
+    // logic to handle table's turn
+    void tableTurn() {
+        final long start = sample();
+        // if table's rank is less than or 16, it continues to draw a card
+        // otherwise stays
+        // for this assume ace is 11
+        while (tableCards.size() < MAX_CARDS && mustDraw(tableHand, rules.hitsSoft17())) {
+            addTableCard(take(GameListener.TABLE, 0));
+        }
+        Metrics.TABLE_TURN.recordSince(start);
+    }
+
+    // the table's draw rule, with H17 a soft 17 draws too
+    static boolean mustDraw(final int tableHand, final boolean hitSoft17) {
+        return HandValue.drawTotal(tableHand) <= 16
+                || hitSoft17 && HandValue.isSoft(tableHand) && HandValue.score(tableHand) == 17;
+    }
+
+    // settles every hand of every seat waiting for the table, in one pass
+    void settle() {
+        for (final Seat seat : seats) {
+            if (seat.state != State.WAITING) {
+                continue;
+            }
+            for (int i = 0; i < seat.handCount; i++) {
+                final Hand hand = seat.hands[i];
+                if (hand.state == State.WAITING) {
+                    hand.outcome = determineWinner(seat, hand);
+                    hand.state = State.FINISHED;
+                    listener.onSettle(seat.index, i, hand.outcome);
+                    if (metered) {
+                        Metrics.count(hand.outcome);
+                    }
+                }
+            }
+            seat.state = State.FINISHED;
+        }
+    }
+
+    // determines winner or loser, and settles the bid
+    Outcome determineWinner(final Seat seat, final Hand hand) {
+        final long start = sample();
+        final int playerScore = HandValue.score(hand.value);
+        final int tableScore = HandValue.score(tableHand);
+
+        // bid is double, if insurance was purchased (and doubles the bid)
+        final int bid = hand.bid * (seat.insured && rules.getInsurance() == RuleSet.Insurance.DOUBLE_BID ? 2 : 1);
+
+        if (playerScore > 21) {
+            // if player score is > 21, doesn't matter what is the
+            // score of the table, player loses
+            pay(seat, -bid);
+            return recorded(Metrics.DETERMINE_WINNER, start, Outcome.LOSE);
+        } else if (tableScore > 21) {
+            // else, if table went overboard, player is the winner
+            pay(seat, bid);
+            return recorded(Metrics.DETERMINE_WINNER, start, Outcome.WIN);
+        } else if (playerScore == tableScore) {
+            // both are less than 21, but same score, no winner
+            return recorded(Metrics.DETERMINE_WINNER, start, Outcome.PUSH);
+        } else if (playerScore > tableScore) {
+            // player has the higher score, player wins winner
+            pay(seat, bid);
+            return recorded(Metrics.DETERMINE_WINNER, start, Outcome.WIN);
+        } else { // if (tableScore > playerScore) ...
+            // table has higher score, so player is the loser
+            pay(seat, -bid);
+            return recorded(Metrics.DETERMINE_WINNER, start, Outcome.LOSE);
+        }
+    }
+
+    // start of a timed section, for one in so many (see Metrics)
+    private long sample() {
+        return metered && (++samples & Metrics.SAMPLE_MASK) == 0 ? Metrics.start() : 0;
+    }
+
+    // records the action's latency on the way out
+    private static Outcome recorded(final LatencyRecorder latency, final long start, final Outcome outcome) {
+        latency.recordSince(start);
+        return outcome;
+    }
+
+    // chips from the table to the seat, negative from the seat to the table
+    private void pay(final Seat seat, final int amount) {
+        tableEarning -= amount;
+        seat.earning += amount;
+        unsettled[seat.index] += amount;
+        listener.onPayout(seat.index, amount);
+    }
+
+    // the round's payouts to the ledger, in one batch
+    private void settleRound() {
+        if (ledger == null) {
+            return;
+        }
+        ledger.settle(tableAccount, seatAccounts, unsettled, seats.length);
+        Arrays.fill(unsettled, 0);
+    }
+
+    // next card of the shoe, reporting the shuffle if the shoe ran out and was refilled
+    private Card take(final int seat, final int hand) {
+        final long shuffles = servingCardDeck.getShuffles();
+        final Card card = servingCardDeck.take();
+        if (servingCardDeck.getShuffles() != shuffles) {
+            listener.onShuffle(servingCardDeck.size() + 1);
+        }
+        listener.onCard(seat, hand, card.getIndex());
+        return card;
+    }
+
+    // a card to the hand the seat is playing
+    private void dealTo(final Seat seat) {
+        seat.hand().add(take(seat.index, seat.current));
+    }
+
+    private void addTableCard(final Card tableCard) {
+        tableCards.add(tableCard);
+        tableHand = HandValue.add(tableHand, tableCard);
+    }
+
+    private static void startPlay(final Seat seat) {
+        seat.hand().canDoubleDown = true;
+        seat.hand().state = State.PLAY;
+        seat.state = State.PLAY;
+    }
+
+    // the hand (the one the seat is playing) is decided, so is the seat if it has no other hand
+    private void finish(final Seat seat, final Hand hand, final Outcome outcome) {
+        hand.outcome = outcome;
+        hand.state = State.FINISHED;
+        listener.onSettle(seat.index, seat.current, outcome);
+        if (metered) {
+            Metrics.count(outcome);
+        }
+        if (seat.handCount == 1) {
+            seat.state = State.FINISHED;
+        }
+    }
+
+    private void checkRoundState(final State expected) {
+        if (roundState != expected) {
+            throw new IllegalStateException("Expected " + expected + ", but the game is in " + getState());
+        }
+    }
+
+    private Seat seat(final int index, final State expected) {
+        final Seat seat = seats[index];
+        if (seat.state != expected) {
+            throw new IllegalStateException("Expected " + expected + ", but seat " + index + " is in " + seat.state);
+        }
+        return seat;
+    }
+
+    // the seat that has to act, or the first seat
+    private Seat current() {
+        return seats[getCurrentSeat()];
+    }
+
+    // first seat that has to act, 0 when none has to
+    public int getCurrentSeat() {
+        for (int i = 0; i < seats.length; i++) {
+            if (seats[i].state == State.OFFER || seats[i].state == State.PLAY) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    public int getSeats() {
+        return seats.length;
+    }
+
+    // DEAL or FINISHED for the round, otherwise the state of the current seat
+    public State getState() {
+        return roundState == State.PLAY ? current().state : roundState;
+    }
+
+    // the table's second card is face down while the seats play, turned over at the table's turn
+    public boolean isHoleCardHidden() {
+        return roundState == State.PLAY && tableCards.size() > 1;
+    }
+
+    public State getState(final int seat) {
+        return seats[seat].state;
+    }
+
+    public Outcome getOutcome() {
+        return current().hand().outcome;
+    }
+
+    // of the seat's current hand
+    public Outcome getOutcome(final int seat) {
+        return seats[seat].hand().outcome;
+    }
+
+    public Outcome getOutcome(final int seat, final int hand) {
+        return seats[seat].hands[hand].outcome;
+    }
+
+    public int getHands(final int seat) {
+        return seats[seat].handCount;
+    }
+
+    // hand the seat is playing
+    public int getCurrentHand(final int seat) {
+        return seats[seat].current;
+    }
+
+    public List<Card> getTableCards() {
+        return tableCards;
+    }
+
+    public List<Card> getPlayerCards() {
+        return current().hand().cards;
+    }
+
+    public List<Card> getPlayerCards(final int seat) {
+        return seats[seat].hand().cards;
+    }
+
+    public List<Card> getPlayerCards(final int seat, final int hand) {
+        return seats[seat].hands[hand].cards;
+    }
+
+    public int getDecks() {
+        return rules.getDecks();
+    }
+
+    public RuleSet getRules() {
+        return rules;
+    }
+
+    public Deck getServingCardDeck() {
+        return servingCardDeck;
+    }
+
+    public Deck getReturnCardDeck() {
+        return returnCardDeck;
+    }
+
+    public int getCurrentBid() {
+        return current().hand().bid;
+    }
+
+    public int getCurrentBid(final int seat) {
+        return seats[seat].hand().bid;
+    }
+
+    public int getCurrentBid(final int seat, final int hand) {
+        return seats[seat].hands[hand].bid;
+    }
+
+    public long getTableEarning() {
+        return tableEarning;
+    }
+
+    public long getPlayerEarning() {
+        return current().earning;
+    }
+
+    public long getPlayerEarning(final int seat) {
+        return seats[seat].earning;
+    }
+
+    public boolean isInsured() {
+        return current().insured;
+    }
+
+    public boolean isInsured(final int seat) {
+        return seats[seat].insured;
+    }
+
+    public boolean canDoubleDown() {
+        return canDoubleDown(getCurrentSeat());
+    }
+
+    public boolean canDoubleDown(final int seat) {
+        return seats[seat].state == State.PLAY && canDoubleDown(seats[seat].hand());
+    }
+
+    public boolean canSplit() {
+        return canSplit(getCurrentSeat());
+    }
+
+    public boolean canSplit(final int seat) {
+        return seats[seat].state == State.PLAY && canSplit(seats[seat]);
+    }
+
+    public boolean canHit(final int seat) {
+        return seats[seat].state == State.PLAY && canHit(seats[seat].hand());
+    }
+
+    public int computePlayerScore() {
+        return HandValue.score(current().hand().value);
+    }
+
+    public int computeTableScore() {
+        return HandValue.score(tableHand);
+    }
+
+    public int getTableHand() {
+        return tableHand;
+    }
+
+    public int getPlayerHand() {
+        return current().hand().value;
+    }
+
+    public int getPlayerHand(final int seat) {
+        return seats[seat].hand().value;
+    }
+
+    public int getPlayerHand(final int seat, final int hand) {
+        return seats[seat].hands[hand].value;
+    }
+}
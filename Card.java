@@ -1,14 +1,48 @@
 import javax.swing.*;
 
 public class Card {
+    // one immutable card for each (Rank, Suite), shared by every deck
+    private static final Card[] CARDS = new Card[Suite.values().length * Rank.values().length];
+
+    static {
+        for (final Suite suite : Suite.values()) {
+            for (final Rank rank : Rank.values()) {
+                final Card card = new Card(rank, suite);
+                CARDS[card.index] = card;
+            }
+        }
+    }
+
     private final Rank rank;
     private final Suite suite;
-    private final ImageIcon icon;
+    private final int index;
+    private final int value; // rank's numeric value, to score without dereferencing the rank
+    private final String imageFileName;
 
-    public Card(final Rank rank, final Suite suite) {
+    private Card(final Rank rank, final Suite suite) {
         this.rank = rank;
         this.suite = suite;
-        this.icon = new ImageIcon(getClass().getResource("images/" + rank.getImageFileName() + "_of_" + suite.getImageFileName() + ".png"));
+        this.index = suite.ordinal() * Rank.values().length + rank.ordinal();
+        this.value = rank.getNumericValue();
+        this.imageFileName = rank.getImageFileName() + "_of_" + suite.getImageFileName() + ".png";
+    }
+
+    public static Card of(final Rank rank, final Suite suite) {
+        return CARDS[suite.ordinal() * Rank.values().length + rank.ordinal()];
+    }
+
+    public static Card of(final int index) {
+        return CARDS[index];
+    }
+
+    // 0..51, position of the card in a fresh deck
+    public int getIndex() {
+        return index;
+    }
+
+    // 1 (ace) to 10
+    public int getValue() {
+        return value;
     }
 
     public Rank getRank() {
@@ -19,8 +53,13 @@ public class Card {
         return suite;
     }
 
+    public String getImageFileName() {
+        return imageFileName;
+    }
+
+    // the image is only loaded when the card is drawn
     public ImageIcon getIcon() {
-        return icon;
+        return ImageCache.get(imageFileName);
     }
 
     @Override
@@ -0,0 +1,109 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Every card face, the card back and the empty place of a card, scaled once to one card size and
+ * laid out in one image, 13 to a row. Painting a card copies a rectangle of it, so the table paints
+ * from one image that Java2D keeps in video memory, instead of one scaled icon per card.
+ * A few sizes are kept (split hands have narrower cards), the least recently used is dropped.
+ */
+final class CardAtlas {
+    static final int BACK = 52;
+    static final int EMPTY = 53; // "pick a card", no card dealt there yet
+    private static final int SPRITES = 54;
+    private static final int COLUMNS = 13;
+    private static final int MAX_ATLASES = 8;
+
+    // access ordered, so that the least recently painted size is evicted first
+    private static final Map<Long, CardAtlas> atlases = new LinkedHashMap<>(MAX_ATLASES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Long, CardAtlas> eldest) {
+            return size() > MAX_ATLASES;
+        }
+    };
+
+    private final BufferedImage image;
+    private final int width;
+    private final int height;
+
+    private CardAtlas(final int width, final int height) {
+        this.width = width;
+        this.height = height;
+        image = createImage(COLUMNS * width, (SPRITES + COLUMNS - 1) / COLUMNS * height);
+        final Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            for (int sprite = 0; sprite < SPRITES; sprite++) {
+                g.drawImage(icon(sprite).getImage(), x(sprite), y(sprite), width, height, null);
+            }
+        } finally {
+            g.dispose();
+        }
+    }
+
+    // the atlas of cards of that size, built on first use (on any thread)
+    static CardAtlas of(final int width, final int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Card size must be positive!");
+        }
+        final long key = (long) width << 32 | height;
+        synchronized (atlases) {
+            CardAtlas atlas = atlases.get(key);
+            if (atlas == null) {
+                atlas = new CardAtlas(width, height);
+                atlases.put(key, atlas);
+            }
+            return atlas;
+        }
+    }
+
+    // a card's index, BACK or EMPTY
+    static int sprite(final Card card) {
+        return card == null ? EMPTY : card.getIndex();
+    }
+
+    void draw(final Graphics g, final int sprite, final int x, final int y) {
+        final int sx = x(sprite);
+        final int sy = y(sprite);
+        g.drawImage(image, x, y, x + width, y + height, sx, sy, sx + width, sy + height, null);
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    private int x(final int sprite) {
+        return sprite % COLUMNS * width;
+    }
+
+    private int y(final int sprite) {
+        return sprite / COLUMNS * height;
+    }
+
+    private static ImageIcon icon(final int sprite) {
+        switch (sprite) {
+            case BACK:
+                return ImageCache.get("back.png");
+            case EMPTY:
+                return ImageCache.get("pick_a_card.png");
+            default:
+                return Card.of(sprite).getIcon();
+        }
+    }
+
+    // in the screen's format when there is one, so that drawing it is a plain copy
+    private static BufferedImage createImage(final int width, final int height) {
+        if (GraphicsEnvironment.isHeadless()) {
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        }
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration()
+                .createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+    }
+}
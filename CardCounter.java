@@ -0,0 +1,145 @@
+import java.util.Arrays;
+
+/**
+ * Counts the cards coming out of a shoe with every {@link CountingSystem} at once: the cards left
+ * per value, and a running count per system, both updated in O(1) per card (see {@link DeckListener}).
+ * A shuffle recounts the shoe once, the cards not in it (on the table, in the returned deck) count
+ * as seen. True counts, the player's edge and a bet follow from these without looking at the shoe.
+ * <p>
+ * Attached to an engine, the table's hole card is left out until the engine turns it over (see
+ * {@link BlackJackEngine#isHoleCardHidden()}): it counts as still in the shoe, like for the player.
+ * <p>
+ * Not thread safe, used on the thread playing the table.
+ */
+public final class CardCounter implements DeckListener {
+    private static final CountingSystem[] SYSTEMS = CountingSystem.values();
+
+    private final int decks;
+    private final int[] shoeTotals = new int[SYSTEMS.length]; // tags of a fresh shoe, per system
+    private final int[] running = new int[SYSTEMS.length];
+    private final int[] remaining = new int[11]; // cards left per value, 1 (ace) to 10
+    private int cards; // left in the shoe
+    private BlackJackEngine engine; // whose hole card is not counted while hidden, null for a bare shoe
+
+    // player's edge off the top of a shoe, with basic strategy, NaN until known
+    private volatile double baseEdge = Double.NaN;
+
+    public CardCounter(final int decks) {
+        if (decks < 1) {
+            throw new IllegalArgumentException("At least 1 deck is needed!");
+        }
+        this.decks = decks;
+        for (final CountingSystem system : SYSTEMS) {
+            shoeTotals[system.ordinal()] = system.shoeTotal(decks);
+        }
+    }
+
+    // counts the engine's shoe from now on, starting from the cards already out of it
+    public static CardCounter attach(final BlackJackEngine engine) {
+        final CardCounter counter = new CardCounter(engine.getDecks());
+        counter.engine = engine;
+        final Deck shoe = engine.getServingCardDeck();
+        counter.onShuffle(shoe);
+        shoe.setListener(counter);
+        return counter;
+    }
+
+    @Override
+    public void onTake(final Card card) {
+        final int value = card.getValue();
+        remaining[value]--;
+        cards--;
+        for (int i = 0; i < SYSTEMS.length; i++) {
+            running[i] += SYSTEMS[i].tag(value);
+        }
+    }
+
+    // recounts the shoe, once per shuffle
+    @Override
+    public void onShuffle(final Deck deck) {
+        Arrays.fill(remaining, 0);
+        deck.countValues(remaining);
+        cards = deck.size();
+        for (final CountingSystem system : SYSTEMS) {
+            int left = 0;
+            for (int value = 1; value <= 10; value++) {
+                left += remaining[value] * system.tag(value);
+            }
+            // the tags of the cards seen
+            running[system.ordinal()] = system.initialCount(decks) + shoeTotals[system.ordinal()] - left;
+        }
+    }
+
+    public int getRunningCount(final CountingSystem system) {
+        final int hole = hole();
+        return running[system.ordinal()] - (hole == 0 ? 0 : system.tag(hole));
+    }
+
+    // running count per deck left; for KO, less the drift expected from its unbalanced tags
+    public double getTrueCount(final CountingSystem system) {
+        final int left = getCardsLeft();
+        if (left == 0) {
+            return 0;
+        }
+        final int seen = decks * Deck.CARDS_PER_DECK - left;
+        final double drift = (double) shoeTotals[system.ordinal()] * seen / (decks * Deck.CARDS_PER_DECK);
+        return (getRunningCount(system) - system.initialCount(decks) - drift) / getDecksLeft();
+    }
+
+    public double getDecksLeft() {
+        return (double) getCardsLeft() / Deck.CARDS_PER_DECK;
+    }
+
+    // unseen: the shoe's, and the hole card while it is hidden
+    public int getCardsLeft() {
+        return cards + (hole() == 0 ? 0 : 1);
+    }
+
+    // cards of the value (1 for ace to 10) left unseen
+    public int getCardsLeft(final int value) {
+        return remaining[value] + (hole() == value ? 1 : 0);
+    }
+
+    // adds the cards left unseen per value to counts, like Deck#countValues without going through the shoe
+    public void countValues(final int[] counts) {
+        for (int value = 1; value <= 10; value++) {
+            counts[value] += remaining[value];
+        }
+        final int hole = hole();
+        if (hole != 0) {
+            counts[hole]++;
+        }
+    }
+
+    // value of the hole card taken from the shoe but not shown yet, 0 if none
+    private int hole() {
+        return engine != null && engine.isHoleCardHidden() ? engine.getTableCards().get(1).getValue() : 0;
+    }
+
+    public double getBaseEdge() {
+        return baseEdge;
+    }
+
+    // e.g. from a Simulator run of the rules, may be set from another thread
+    public void setBaseEdge(final double baseEdge) {
+        this.baseEdge = baseEdge;
+    }
+
+    // player's expected value per bid for the next hand, NaN while the base edge is not known
+    public double getEdge(final CountingSystem system) {
+        return baseEdge + system.getEdgePerTrueCount() * getTrueCount(system);
+    }
+
+    // minBid with no edge, one more minBid per true count's worth of edge, up to spread times minBid
+    // without a base edge, the house is assumed to be one true count ahead off the top
+    public int suggestBid(final CountingSystem system, final int minBid, final int spread) {
+        final double edge = Double.isNaN(baseEdge)
+                ? system.getEdgePerTrueCount() * (getTrueCount(system) - 1)
+                : getEdge(system);
+        if (!(edge > 0)) {
+            return minBid;
+        }
+        final int units = 1 + (int) (edge / system.getEdgePerTrueCount());
+        return minBid * Math.min(units, spread);
+    }
+}
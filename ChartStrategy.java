@@ -0,0 +1,150 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Plays a strategy chart, as printed on casino cards, read from a text file. A line is a hand
+ * and one play per upcard, 2 to 10 then ace; '#' starts a comment:
+ * <pre>
+ * # hand  2  3  4  5  6  7  8  9  10 A
+ * H16     S  S  S  S  S  H  H  R  R  R
+ * S18     X  X  X  X  X  S  S  H  H  H
+ * P8      P  P  P  P  P  P  P  P  P  P
+ * </pre>
+ * Hands are H4 to H21 (hard), S12 to S21 (soft, an ace counted as 11) and P1 to P10 (pairs,
+ * P1 for aces). Plays are H hit, S stay, D double (or hit), X double (or stay), P split
+ * (pairs only) and R surrender when offered (otherwise hit). A hand without a line stays from 17
+ * and hits below. Insurance is never bought; the bid is the same every hand.
+ */
+public class ChartStrategy implements PlayerStrategy {
+    private static final byte NONE = 0;
+    private static final byte HIT = 'H';
+    private static final byte STAY = 'S';
+    private static final byte DOUBLE_OR_HIT = 'D';
+    private static final byte DOUBLE_OR_STAY = 'X';
+    private static final byte SPLIT = 'P';
+    private static final byte SURRENDER = 'R';
+
+    private static final int SPLIT_BIT = DecisionBatch.bit(Action.SPLIT);
+    private static final int DOUBLE_BIT = DecisionBatch.bit(Action.DOUBLE_DOWN);
+    private static final int HIT_BIT = DecisionBatch.bit(Action.HIT);
+    private static final int SURRENDER_BIT = DecisionBatch.bit(Action.SURRENDER);
+
+    // plays per [total * 11 + upcard]
+    private final byte[] hard = new byte[32 * 11];
+    private final byte[] soft = new byte[32 * 11];
+    private final byte[] pairs = new byte[11 * 11];
+    private final int bid;
+
+    public ChartStrategy(final List<String> lines, final int bid) {
+        this.bid = bid;
+        for (int n = 0; n < lines.size(); n++) {
+            final int comment = lines.get(n).indexOf('#');
+            final String line = (comment < 0 ? lines.get(n) : lines.get(n).substring(0, comment)).trim();
+            if (!line.isEmpty()) {
+                parse(n + 1, line.split("\\s+"));
+            }
+        }
+    }
+
+    static ChartStrategy load(final String file) {
+        try {
+            return new ChartStrategy(Files.readAllLines(Paths.get(file)), SimulationStats.BID);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Chart " + file + " not read", e);
+        }
+    }
+
+    private void parse(final int n, final String[] fields) {
+        if (fields.length != 11 || fields[0].length() < 2) {
+            throw new IllegalArgumentException("Line " + n + ": a hand and 10 plays are expected!");
+        }
+        final int total;
+        try {
+            total = Integer.parseInt(fields[0].substring(1));
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Line " + n + ": unknown hand " + fields[0] + "!");
+        }
+        final byte[] chart;
+        switch (fields[0].charAt(0)) {
+            case 'H':
+                chart = total >= 4 && total <= 21 ? hard : null;
+                break;
+            case 'S':
+                chart = total >= 12 && total <= 21 ? soft : null;
+                break;
+            case 'P':
+                chart = total >= 1 && total <= 10 ? pairs : null;
+                break;
+            default:
+                chart = null;
+        }
+        if (chart == null) {
+            throw new IllegalArgumentException("Line " + n + ": unknown hand " + fields[0] + "!");
+        }
+        for (int column = 1; column <= 10; column++) {
+            final String play = fields[column];
+            if (play.length() != 1 || "HSDXPR".indexOf(play.charAt(0)) < 0 || (play.charAt(0) == SPLIT && chart != pairs)) {
+                throw new IllegalArgumentException("Line " + n + ": unknown play " + play + "!");
+            }
+            // columns are 2 to 10, then the ace
+            final int upcard = column == 10 ? 1 : column + 1;
+            chart[total * 11 + upcard] = (byte) play.charAt(0);
+        }
+    }
+
+    @Override
+    public void decide(final DecisionBatch batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            if (batch.states[i] == DecisionBatch.DEAL) {
+                batch.setAction(i, Action.DEAL);
+                batch.bids[i] = bid;
+                continue;
+            }
+            final byte play = play(batch.hands[i], batch.upcards[i], batch.allowed[i]);
+            batch.setAction(i, batch.states[i] == DecisionBatch.OFFER ? offer(play, batch.allowed[i])
+                    : action(play, batch.allowed[i]));
+        }
+    }
+
+    private byte play(final int hand, final int upcard, final int allowed) {
+        final int hardTotal = HandValue.hardTotal(hand);
+        // a hand that can be split is a pair, of aces if it has one
+        if ((allowed & SPLIT_BIT) != 0) {
+            final int value = HandValue.hasAce(hand) ? 1 : hardTotal / 2;
+            if (pairs[value * 11 + upcard] == SPLIT) {
+                return SPLIT;
+            }
+        }
+        final boolean isSoft = HandValue.hasAce(hand) && hardTotal + 10 <= 21;
+        final byte play = isSoft ? soft[(hardTotal + 10) * 11 + upcard] : hard[Math.min(hardTotal, 31) * 11 + upcard];
+        if (play != NONE) {
+            return play;
+        }
+        return (isSoft ? hardTotal + 10 : hardTotal) >= 17 ? STAY : HIT;
+    }
+
+    private static Action offer(final byte play, final int allowed) {
+        return play == SURRENDER && (allowed & SURRENDER_BIT) != 0 ? Action.SURRENDER : Action.PROCEED;
+    }
+
+    private static Action action(final byte play, final int allowed) {
+        switch (play) {
+            case SPLIT:
+                return Action.SPLIT;
+            case DOUBLE_OR_HIT:
+            case DOUBLE_OR_STAY:
+                if ((allowed & DOUBLE_BIT) != 0) {
+                    return Action.DOUBLE_DOWN;
+                }
+                return play == DOUBLE_OR_HIT && (allowed & HIT_BIT) != 0 ? Action.HIT : Action.STAY;
+            case STAY:
+                return Action.STAY;
+            default:
+                // hit, or surrender once it is too late to
+                return (allowed & HIT_BIT) != 0 ? Action.HIT : Action.STAY;
+        }
+    }
+}
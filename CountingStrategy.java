@@ -0,0 +1,91 @@
+/**
+ * Hi-Lo card counting: basic strategy, changed where the true count makes another play better
+ * (the play deviations of the "Illustrious 18"), and a bid that rises with the true count.
+ * The indices are the usual ones for shoe games; this table's own draw rule (see BlackJack) moves
+ * some of them a little.
+ */
+public class CountingStrategy implements PlayerStrategy {
+    private static final byte HIT = (byte) Action.HIT.ordinal();
+    private static final byte STAY = (byte) Action.STAY.ordinal();
+    private static final byte DOUBLE = (byte) Action.DOUBLE_DOWN.ordinal();
+    private static final int DOUBLE_DOWN = DecisionBatch.bit(Action.DOUBLE_DOWN);
+
+    // hard total, upcard, index: at or above the index the first action, below it the second
+    private static final int[][] DEVIATIONS = {
+            {16, 10, 0, STAY, HIT},
+            {15, 10, 4, STAY, HIT},
+            {10, 10, 4, DOUBLE, HIT},
+            {12, 3, 2, STAY, HIT},
+            {12, 2, 3, STAY, HIT},
+            {11, 1, 1, DOUBLE, HIT},
+            {9, 2, 1, DOUBLE, HIT},
+            {10, 1, 4, DOUBLE, HIT},
+            {9, 7, 3, DOUBLE, HIT},
+            {16, 9, 5, STAY, HIT},
+            {13, 2, -1, STAY, HIT},
+            {12, 4, 0, STAY, HIT},
+            {12, 5, -2, STAY, HIT},
+            {12, 6, -1, STAY, HIT},
+            {13, 3, -2, STAY, HIT},
+    };
+
+    // [hard total * 11 + upcard], index of a deviation + 1, 0 for none
+    private static final byte[] DEVIATION_AT = new byte[32 * 11];
+
+    static {
+        for (int i = 0; i < DEVIATIONS.length; i++) {
+            DEVIATION_AT[DEVIATIONS[i][0] * 11 + DEVIATIONS[i][1]] = (byte) (i + 1);
+        }
+    }
+
+    private final BasicStrategy basic;
+    private final int minBid;
+    private final int spread; // largest bid, in minimum bids
+
+    public CountingStrategy(final RuleSet rules) {
+        this(rules, SimulationStats.BID, 8);
+    }
+
+    public CountingStrategy(final RuleSet rules, final int minBid, final int spread) {
+        if (spread < 1) {
+            throw new IllegalArgumentException("Spread must be at least 1!");
+        }
+        basic = new BasicStrategy(rules, minBid);
+        this.minBid = minBid;
+        this.spread = spread;
+    }
+
+    @Override
+    public boolean countsCards() {
+        return true;
+    }
+
+    @Override
+    public void decide(final DecisionBatch batch) {
+        basic.decide(batch);
+        for (int i = 0; i < batch.size(); i++) {
+            final double trueCount = batch.trueCounts[i];
+            if (batch.states[i] == DecisionBatch.DEAL) {
+                // one more minimum bid per true count above 1, where the player gets the edge
+                final int units = trueCount > 1 ? 1 + (int) (trueCount - 1) : 1;
+                batch.bids[i] = minBid * Math.min(units, spread);
+            } else if (batch.states[i] == DecisionBatch.PLAY) {
+                final int hand = batch.hands[i];
+                // hard hands only, a soft hand plays basic strategy
+                if (HandValue.hasAce(hand) && HandValue.hardTotal(hand) + 10 <= 21) {
+                    continue;
+                }
+                final int deviation = DEVIATION_AT[HandValue.hardTotal(hand) * 11 + batch.upcards[i]];
+                if (deviation == 0) {
+                    continue;
+                }
+                final int[] play = DEVIATIONS[deviation - 1];
+                byte action = (byte) (trueCount >= play[2] ? play[3] : play[4]);
+                if (action == DOUBLE && (batch.allowed[i] & DOUBLE_DOWN) == 0) {
+                    action = HIT;
+                }
+                batch.actions[i] = action;
+            }
+        }
+    }
+}
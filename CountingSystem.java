@@ -0,0 +1,59 @@
+/**
+ * Card counting systems: a tag per card value, added to the running count when a card is seen.
+ * A balanced system's tags add up to 0 over a deck, so its running count starts at 0.
+ * KO is unbalanced (the 7 counts too), its running count starts at 4 - 4 * decks, and reaches
+ * its pivot around +2 whatever the number of decks.
+ */
+public enum CountingSystem {
+    //        -, A, 2, 3, 4, 5, 6, 7, 8,  9, 10
+    HI_LO(new int[]{0, -1, 1, 1, 1, 1, 1, 0, 0, 0, -1}, 0.005),
+    KO(new int[]{0, -1, 1, 1, 1, 1, 1, 1, 0, 0, -1}, 0.005),
+    OMEGA_II(new int[]{0, 0, 1, 1, 2, 2, 2, 1, 0, -1, -2}, 0.0025);
+
+    private final int[] tags; // by card value, 1 (ace) to 10
+    private final double edgePerTrueCount; // player's edge gained per true count, a rule of thumb
+
+    CountingSystem(final int[] tags, final double edgePerTrueCount) {
+        this.tags = tags;
+        this.edgePerTrueCount = edgePerTrueCount;
+    }
+
+    public int tag(final int value) {
+        return tags[value];
+    }
+
+    public double getEdgePerTrueCount() {
+        return edgePerTrueCount;
+    }
+
+    // sum of the tags of a fresh shoe, 0 for a balanced system
+    public int shoeTotal(final int decks) {
+        final int[] shoe = DealerOutcomes.fullShoe(decks);
+        int total = 0;
+        for (int value = 1; value <= 10; value++) {
+            total += shoe[value] * tags[value];
+        }
+        return total;
+    }
+
+    public boolean isBalanced() {
+        return shoeTotal(1) == 0;
+    }
+
+    // running count of a fresh shoe
+    public int initialCount(final int decks) {
+        return isBalanced() ? 0 : 4 - shoeTotal(decks);
+    }
+
+    @Override
+    public String toString() {
+        switch (this) {
+            case HI_LO:
+                return "Hi-Lo";
+            case OMEGA_II:
+                return "Omega II";
+            default:
+                return name();
+        }
+    }
+}
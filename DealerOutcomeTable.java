@@ -0,0 +1,161 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link DealerOutcomes} of a fresh shoe for every upcard, computed once, saved to a binary file
+ * and memory-mapped on the next start, so a lookup is a read at a fixed index.
+ * {@link #forRules(RuleSet)} keeps one table per shoe and draw rule for the whole process.
+ * <pre>
+ * int magic, int version, int decks, int hitSoft17, then doubles [upcard 1..10][peeked 0..1][outcome]
+ * </pre>
+ */
+public class DealerOutcomeTable {
+    private static final int MAGIC = 0x424A444F; // "BJDO"
+    private static final int VERSION = 2;
+    private static final int HEADER = 4 * Integer.BYTES;
+    private static final int ENTRIES = 10 * 2 * DealerOutcomes.OUTCOMES;
+
+    // per decks and draw rule, the only rules the table depends on
+    private static final Map<Integer, DealerOutcomeTable> TABLES = new ConcurrentHashMap<>();
+
+    private final int decks;
+    private final boolean hitSoft17;
+    private final ByteBuffer table;
+
+    private DealerOutcomeTable(final int decks, final boolean hitSoft17, final ByteBuffer table) {
+        this.decks = decks;
+        this.hitSoft17 = hitSoft17;
+        this.table = table;
+    }
+
+    // shared table for the rules, loaded from the default file, or computed in memory if it cannot be written
+    public static DealerOutcomeTable forRules(final RuleSet rules) {
+        return TABLES.computeIfAbsent(rules.getDecks() * 2 + (rules.hitsSoft17() ? 1 : 0), key -> {
+            try {
+                return load(defaultFile(rules.getDecks(), rules.hitsSoft17()), rules.getDecks(), rules.hitsSoft17());
+            } catch (final IOException e) {
+                final ByteBuffer table = compute(rules.getDecks(), rules.hitsSoft17());
+                return new DealerOutcomeTable(rules.getDecks(), rules.hitsSoft17(), table);
+            }
+        });
+    }
+
+    // maps the file, computing and writing it first if it is missing or for other rules
+    public static DealerOutcomeTable load(final Path file, final int decks, final boolean hitSoft17) throws IOException {
+        if (!isValid(file, decks, hitSoft17)) {
+            write(file, decks, hitSoft17);
+        }
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final ByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            return new DealerOutcomeTable(decks, hitSoft17, table);
+        }
+    }
+
+    // in the temp directory, one file per number of decks and draw rule
+    public static Path defaultFile(final int decks, final boolean hitSoft17) {
+        return Paths.get(System.getProperty("java.io.tmpdir"),
+                "blackjack-dealer-" + decks + (hitSoft17 ? "-h17" : "") + ".bin");
+    }
+
+    public int getDecks() {
+        return decks;
+    }
+
+    public boolean hitsSoft17() {
+        return hitSoft17;
+    }
+
+    public double probability(final int upcard, final boolean peeked, final int outcome) {
+        return table.getDouble(HEADER + Double.BYTES * index(upcard, peeked, outcome));
+    }
+
+    public double[] outcomes(final int upcard, final boolean peeked) {
+        final double[] outcomes = new double[DealerOutcomes.OUTCOMES];
+        for (int i = 0; i < outcomes.length; i++) {
+            outcomes[i] = probability(upcard, peeked, i);
+        }
+        return outcomes;
+    }
+
+    private static int index(final int upcard, final boolean peeked, final int outcome) {
+        return ((upcard - 1) * 2 + (peeked ? 1 : 0)) * DealerOutcomes.OUTCOMES + outcome;
+    }
+
+    private static boolean isValid(final Path file, final int decks, final boolean hitSoft17) throws IOException {
+        if (!Files.isRegularFile(file) || Files.size(file) != HEADER + (long) Double.BYTES * ENTRIES) {
+            return false;
+        }
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0);
+            header.flip();
+            return header.getInt() == MAGIC && header.getInt() == VERSION && header.getInt() == decks
+                    && header.getInt() == (hitSoft17 ? 1 : 0);
+        }
+    }
+
+    // the file contents, header included
+    private static ByteBuffer compute(final int decks, final boolean hitSoft17) {
+        final ByteBuffer buffer = ByteBuffer.allocate(HEADER + Double.BYTES * ENTRIES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(decks).putInt(hitSoft17 ? 1 : 0);
+        for (int upcard = 1; upcard <= 10; upcard++) {
+            final int[] counts = DealerOutcomes.fullShoe(decks);
+            counts[upcard]--;
+            for (int peeked = 0; peeked < 2; peeked++) {
+                for (final double p : DealerOutcomes.compute(upcard, counts, peeked == 1, hitSoft17)) {
+                    buffer.putDouble(p);
+                }
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void write(final Path file, final int decks, final boolean hitSoft17) throws IOException {
+        final ByteBuffer buffer = compute(decks, hitSoft17);
+
+        // write aside and move, so that a reader never maps a half written file
+        final Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (final FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // prints the table: DealerOutcomeTable [decks] [h17]
+    public static void main(final String[] args) throws IOException {
+        final int decks = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+        final boolean hitSoft17 = args.length > 1 && args[1].equalsIgnoreCase("h17");
+        final long start = System.nanoTime();
+        final DealerOutcomeTable table = load(defaultFile(decks, hitSoft17), decks, hitSoft17);
+        System.out.printf("%d decks %s, loaded in %.1f ms (peeked)%n", decks, hitSoft17 ? "H17" : "S17",
+                (System.nanoTime() - start) / 1e6);
+
+        System.out.print("Up ");
+        for (int score = DealerOutcomes.MIN_SCORE; score <= 21; score++) {
+            System.out.printf("%7d", score);
+        }
+        System.out.printf("%7s%n", "Bust");
+        for (int upcard = 1; upcard <= 10; upcard++) {
+            System.out.printf("%2s ", upcard == 1 ? "A" : Integer.toString(upcard));
+            for (int i = 0; i < DealerOutcomes.OUTCOMES; i++) {
+                System.out.printf("%7.4f", table.probability(upcard, true, i));
+            }
+            System.out.println();
+        }
+    }
+}
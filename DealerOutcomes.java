@@ -0,0 +1,133 @@
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Exact probabilities of the table's final score, for an upcard and the cards left in the shoe,
+ * following the table's rule (draws while the total with an ace as 11 is 16 or less,
+ * and on a soft 17 with {@link RuleSet#hitsSoft17()}). Because of that rule the table can stop
+ * on 12 to 16 (e.g. A, 5, 10 is 16), so the outcomes are the scores 12 to 21, and bust.
+ * <p>
+ * Shoe compositions are counts of cards per value, index 1 (ace) to 10 (ten, jack, queen and king),
+ * see {@link Deck#countValues(int[])}. Results are memoized by composition.
+ */
+public class DealerOutcomes {
+    public static final int MIN_SCORE = 12;
+    public static final int BUST = 21 - MIN_SCORE + 1;
+    public static final int OUTCOMES = BUST + 1;
+
+    // recently asked compositions, for advice during a shoe
+    private final Map<Long, double[]> cache;
+    private final boolean hitSoft17;
+
+    public DealerOutcomes(final int maxCached, final boolean hitSoft17) {
+        this.hitSoft17 = hitSoft17;
+        cache = new LinkedHashMap<>(maxCached, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Long, double[]> eldest) {
+                return size() > maxCached;
+            }
+        };
+    }
+
+    // cached version of compute, the returned array must not be modified
+    public synchronized double[] get(final int upcard, final int[] counts, final boolean peeked) {
+        final long key = (pack(counts) * 31 + upcard) * 2 + (peeked ? 1 : 0);
+        double[] outcomes = cache.get(key);
+        if (outcomes == null) {
+            outcomes = compute(upcard, counts, peeked, hitSoft17);
+            cache.put(key, outcomes);
+        }
+        return outcomes;
+    }
+
+    public static int outcomeIndex(final int hand) {
+        return HandValue.isBust(hand) ? BUST : HandValue.score(hand) - MIN_SCORE;
+    }
+
+    /**
+     * @param upcard  value of the table's upcard, 1 (ace) to 10
+     * @param counts  cards left per value, without the upcard
+     * @param peeked  the table is known not to have a black jack (player proceeded)
+     * @param hitSoft17 the table draws on a soft 17
+     */
+    public static double[] compute(final int upcard, final int[] counts, final boolean peeked, final boolean hitSoft17) {
+        final int[] shoe = counts.clone();
+        int total = 0;
+        for (int value = 1; value <= 10; value++) {
+            total += shoe[value];
+        }
+
+        // hole card, a black jack hole card is impossible after peeking
+        final int blackJackValue = upcard == 1 ? 10 : upcard == 10 ? 1 : 0;
+        final int holeTotal = peeked && blackJackValue != 0 ? total - shoe[blackJackValue] : total;
+
+        final Map<Long, double[]> memo = new HashMap<>();
+        final int hand = HandValue.add(HandValue.EMPTY, upcard);
+        final double[] outcomes = new double[OUTCOMES];
+        for (int value = 1; value <= 10; value++) {
+            if (shoe[value] == 0 || (peeked && value == blackJackValue)) {
+                continue;
+            }
+            final double p = (double) shoe[value] / holeTotal;
+            shoe[value]--;
+            final double[] next = play(HandValue.add(hand, value), shoe, total - 1, hitSoft17, memo);
+            shoe[value]++;
+            for (int i = 0; i < OUTCOMES; i++) {
+                outcomes[i] += p * next[i];
+            }
+        }
+        return outcomes;
+    }
+
+    // the hand is determined by the cards drawn, hence by the composition left
+    private static double[] play(final int hand, final int[] shoe, final int total, final boolean hitSoft17,
+                                 final Map<Long, double[]> memo) {
+        if (!BlackJackEngine.mustDraw(hand, hitSoft17) || total == 0) {
+            final double[] outcomes = new double[OUTCOMES];
+            outcomes[outcomeIndex(hand)] = 1;
+            return outcomes;
+        }
+
+        final long key = pack(shoe);
+        final double[] cached = memo.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        final double[] outcomes = new double[OUTCOMES];
+        for (int value = 1; value <= 10; value++) {
+            if (shoe[value] == 0) {
+                continue;
+            }
+            final double p = (double) shoe[value] / total;
+            shoe[value]--;
+            final double[] next = play(HandValue.add(hand, value), shoe, total - 1, hitSoft17, memo);
+            shoe[value]++;
+            for (int i = 0; i < OUTCOMES; i++) {
+                outcomes[i] += p * next[i];
+            }
+        }
+        memo.put(key, outcomes);
+        return outcomes;
+    }
+
+    // 6 bits for aces to nines, 10 for tens: up to 15 decks
+    static long pack(final int[] counts) {
+        long key = counts[10];
+        for (int value = 1; value <= 9; value++) {
+            key = key << 6 | counts[value];
+        }
+        return key;
+    }
+
+    // a fresh shoe of the given number of decks, per value
+    public static int[] fullShoe(final int decks) {
+        final int[] counts = new int[11];
+        for (int value = 1; value <= 9; value++) {
+            counts[value] = 4 * decks;
+        }
+        counts[10] = 16 * decks;
+        return counts;
+    }
+}
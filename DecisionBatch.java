@@ -0,0 +1,88 @@
+/**
+ * Decisions pending at several tables, handed to a {@link PlayerStrategy} at once: one entry per
+ * table that waits for its player, in parallel arrays of primitives, so that a strategy goes over
+ * them in one loop and allocates nothing. The strategy writes an action for every entry, and a
+ * bid for every deal.
+ * <p>
+ * Hands are HandValue ints, upcards are card values (1 for ace to 10, 0 before the deal), states
+ * are {@link #DEAL}, {@link #OFFER} or {@link #PLAY}, and the actions allowed are bits of Action
+ * ordinals (see {@link #bit(Action)}). Arrays are only valid up to {@link #size()}.
+ */
+public final class DecisionBatch {
+    public static final byte DEAL = (byte) BlackJackEngine.State.DEAL.ordinal();
+    public static final byte OFFER = (byte) BlackJackEngine.State.OFFER.ordinal();
+    public static final byte PLAY = (byte) BlackJackEngine.State.PLAY.ordinal();
+
+    private static final Action[] ACTIONS = Action.values();
+
+    public final int[] tables; // the table's index at the driver, a strategy may keep state per table
+    public final int[] hands;
+    public final int[] upcards;
+    public final byte[] states;
+    public final int[] allowed;
+    public final double[] trueCounts; // Hi-Lo, when the strategy counts cards (see PlayerStrategy), otherwise 0
+
+    public final byte[] actions; // written by the strategy, Action ordinals
+    public final int[] bids; // written by the strategy for a deal
+
+    private int size;
+
+    public DecisionBatch(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("A batch holds at least 1 decision!");
+        }
+        tables = new int[capacity];
+        hands = new int[capacity];
+        upcards = new int[capacity];
+        states = new byte[capacity];
+        allowed = new int[capacity];
+        trueCounts = new double[capacity];
+        actions = new byte[capacity];
+        bids = new int[capacity];
+    }
+
+    public static int bit(final Action action) {
+        return 1 << action.ordinal();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return tables.length;
+    }
+
+    public boolean isAllowed(final int i, final Action action) {
+        return (allowed[i] & bit(action)) != 0;
+    }
+
+    public Action getAction(final int i) {
+        return actions[i] < 0 ? null : ACTIONS[actions[i]];
+    }
+
+    public void setAction(final int i, final Action action) {
+        actions[i] = (byte) action.ordinal();
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    // a new entry with no action chosen yet, returns its index
+    int add(final int table, final int hand, final int upcard, final byte state, final int allowed, final double trueCount) {
+        if (size == tables.length) {
+            throw new IllegalStateException("Batch is full!");
+        }
+        final int i = size++;
+        tables[i] = table;
+        hands[i] = hand;
+        upcards[i] = upcard;
+        states[i] = state;
+        this.allowed[i] = allowed;
+        trueCounts[i] = trueCount;
+        actions[i] = -1;
+        bids[i] = 0;
+        return i;
+    }
+}
@@ -1,83 +1,275 @@
-import java.util.Collections;
-import java.util.LinkedList;
+import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.random.RandomGenerator;
 
+/**
+ * A deck (or a shoe of several decks) kept as card indices in an array.
+ * Cards are taken from the front and returned to the back, so taking and returning
+ * cards allocate nothing; the array is only compacted when the back is reached.
+ */
 public class Deck {
-    private final List<Card> cards = new LinkedList<>();
+    public static final int CARDS_PER_DECK = 52;
+
+    private byte[] cards; // card indices, see Card.getIndex(), swapped for a shoe of the pool
+    private int first; // next card to take
+    private int end; // one past the last card
 
     private final Deck backupDeck;
 
+    private RandomGenerator random; // shuffles the deck, see RandomSource
+
+    private int cutCard; // number of cards that can be taken before the shoe is reshuffled
+    private int taken; // cards taken since the last shuffle
+    private long shuffles; // number of shuffles, to notice one during a take
+
+    private DeckListener listener = DeckListener.NONE;
+    private ShoePool pool; // shuffled shoes to refill from, see refill()
+    private boolean metered = true; // counted in Metrics, see BlackJackEngine#setMetered
+
     public Deck() {
         this(true, null);
     }
 
     public Deck(final boolean emptyDeck, final Deck deck) {
+        this(1, emptyDeck, deck);
+    }
+
+    public Deck(final int decks, final boolean emptyDeck, final Deck deck) {
+        this(decks, emptyDeck, deck, RandomSource.SPLITTABLE.create());
+    }
+
+    public Deck(final int decks, final boolean emptyDeck, final Deck deck, final RandomGenerator random) {
+        if (decks < 1) {
+            throw new IllegalArgumentException("At least 1 deck is needed!");
+        }
+        cards = new byte[decks * CARDS_PER_DECK];
+        cutCard = cards.length;
         backupDeck = deck;
+        this.random = random;
 
         if (emptyDeck) {
             return;
         }
-        for (final Suite suite : Suite.values()) {
-            for (final Rank rank : Rank.values()) {
-                cards.add(new Card(rank, suite));
-            }
+        fill(cards);
+        end = cards.length;
+    }
+
+    // full decks in order
+    static void fill(final byte[] cards) {
+        for (int i = 0; i < cards.length; i++) {
+            cards[i] = (byte) (i % CARDS_PER_DECK);
         }
     }
 
+    // fraction of the shoe dealt before the cut card comes out, 1.0 means the whole shoe
+    public void setPenetration(final double penetration) {
+        if (penetration <= 0 || penetration > 1) {
+            throw new IllegalArgumentException("Penetration must be in (0, 1]!");
+        }
+        cutCard = (int) (cards.length * penetration);
+    }
+
+    public RandomGenerator getRandom() {
+        return random;
+    }
+
+    public void setRandom(final RandomGenerator random) {
+        this.random = random;
+    }
+
+    public void setListener(final DeckListener listener) {
+        this.listener = listener;
+    }
+
+    // shoes of the pool replace shuffles at the cut card, null shuffles the returned cards again
+    public void setShoePool(final ShoePool pool) {
+        if (pool != null && pool.getDecks() * CARDS_PER_DECK != cards.length) {
+            throw new IllegalArgumentException("The pool's shoes do not have " + cards.length + " cards!");
+        }
+        this.pool = pool;
+    }
+
+    void setMetered(final boolean metered) {
+        this.metered = metered;
+    }
+
     public void shuffle() {
-        Collections.shuffle(cards);
+        final long start = metered ? Metrics.start() : 0;
+        shuffle(cards, first, end, random);
+        taken = 0;
+        shuffles++;
+        count(Metrics.SHUFFLES);
+        Metrics.SHUFFLE.recordSince(start);
+        listener.onShuffle(this);
+    }
+
+    // in-place Fisher-Yates of cards[from, to)
+    static void shuffle(final byte[] cards, final int from, final int to, final RandomGenerator random) {
+        for (int i = to - 1; i > from; i--) {
+            final int j = from + random.nextInt(i - from + 1);
+            final byte card = cards[i];
+            cards[i] = cards[j];
+            cards[j] = card;
+        }
+    }
+
+    public long getShuffles() {
+        return shuffles;
     }
 
     public int size() {
-        return cards.size();
+        return end - first;
+    }
+
+    // number of cards the deck can hold
+    public int capacity() {
+        return cards.length;
+    }
+
+    // the cut card came out, the shoe should be reshuffled before the next hand
+    public boolean isCutCardReached() {
+        return taken >= cutCard;
+    }
+
+    // adds the number of cards left per value (1 for ace to 10) to counts, which has 11 entries
+    public void countValues(final int[] counts) {
+        for (int i = first; i < end; i++) {
+            counts[Card.of(cards[i]).getValue()]++;
+        }
     }
 
     public Card take() {
-        if (cards.isEmpty()) {
+        if (first == end) {
+            // the cards on the table are in neither deck, so the pool's full shoes cannot be used here
             if (backupDeck != null) {
+                count(Metrics.REFILLS);
                 moveCards(backupDeck);
             }
         }
-        if (cards.isEmpty()) {
+        if (first == end) {
             return null;
         }
-        return cards.remove(0);
+        taken++;
+        final Card card = Card.of(cards[first++]);
+        listener.onTake(card);
+        return card;
     }
 
     public Card peak() {
-        if (cards.isEmpty()) {
+        if (first == end) {
             return null;
         }
-        return cards.get(cards.size() - 1);
+        return Card.of(cards[end - 1]);
     }
 
     public void addCards(final List<Card> cards) {
-        this.cards.addAll(cards);
+        for (int i = 0; i < cards.size(); i++) {
+            add(cards.get(i));
+        }
+    }
+
+    public void add(final Card card) {
+        if (end == cards.length) {
+            compact();
+            if (end == cards.length) {
+                throw new IllegalStateException("Deck is full!");
+            }
+        }
+        cards[end++] = (byte) card.getIndex();
+    }
+
+    /**
+     * Puts the returned cards back into the shoe and shuffles it, between hands (every card is in
+     * this deck or the backup deck). With a pool, a shoe shuffled ahead of time replaces both
+     * decks' cards instead, and this deck's array goes back to the pool; if no shoe is ready the
+     * returned cards are shuffled as without a pool.
+     */
+    public void refill() {
+        if (backupDeck == null) {
+            throw new IllegalStateException("No deck to refill from!");
+        }
+        if (pool != null) {
+            final byte[] shoe = pool.poll();
+            if (shoe != null) {
+                pool.recycle(cards);
+                cards = shoe;
+                first = 0;
+                end = cards.length;
+                backupDeck.first = backupDeck.end = 0;
+                taken = 0;
+                shuffles++;
+                count(Metrics.SHOE_SWAPS);
+                listener.onShuffle(this);
+                return;
+            }
+            count(Metrics.SHOE_MISSES);
+        }
+        moveCards(backupDeck);
+    }
+
+    private void count(final LongAdder counter) {
+        if (metered) {
+            Metrics.increment(counter);
+        }
     }
 
     public void moveCards(final Deck deck) {
-        this.cards.addAll(deck.cards);
-        deck.cards.clear();
+        final int count = deck.size();
+        if (cards.length - end < count) {
+            compact();
+            if (cards.length - end < count) {
+                throw new IllegalStateException("Deck is full!");
+            }
+        }
+        System.arraycopy(deck.cards, deck.first, cards, end, count);
+        end += count;
+        deck.first = deck.end = 0;
         shuffle();
     }
 
+    // cards in order and the shoe's counters, see GameSnapshot
+    void save(final ByteBuffer buffer) {
+        buffer.putInt(cutCard).putInt(taken).putLong(shuffles).putShort((short) size());
+        buffer.put(cards, first, size());
+    }
+
+    void restore(final ByteBuffer buffer) {
+        cutCard = buffer.getInt();
+        taken = buffer.getInt();
+        shuffles = buffer.getLong();
+        first = 0;
+        end = buffer.getShort();
+        if (end > cards.length) {
+            throw new IllegalStateException("Deck is full!");
+        }
+        buffer.get(cards, 0, end);
+    }
+
+    // moves the remaining cards to the front of the array
+    private void compact() {
+        if (first == 0) {
+            return;
+        }
+        System.arraycopy(cards, first, cards, 0, end - first);
+        end -= first;
+        first = 0;
+    }
+
     @Override
     public String toString() {
-        if (cards.isEmpty()) {
+        if (first == end) {
             return "Empty Deck";
         }
 
-        boolean first = true;
         final StringBuilder sb = new StringBuilder();
-        for (final Card card : cards) {
-            if (first) {
-                first = false;
-            } else {
+        for (int i = first; i < end; i++) {
+            if (i > first) {
                 sb.append(",");
             }
-            sb.append(card);
+            sb.append(Card.of(cards[i]));
         }
 
         return sb.toString();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,16 @@
+/**
+ * Cards leaving a {@link Deck} and the deck being shuffled, called on the thread using the deck.
+ * One call per card, so keeping track of the deck costs O(1) per card (see {@link CardCounter}).
+ */
+public interface DeckListener {
+    DeckListener NONE = new DeckListener() {
+    };
+
+    // a card was taken from the deck
+    default void onTake(final Card card) {
+    }
+
+    // the deck was shuffled, cards may have been added to it before
+    default void onShuffle(final Deck deck) {
+    }
+}
@@ -0,0 +1,35 @@
+/**
+ * Everything that happens at a {@link BlackJackEngine} table, in order: the actions taken,
+ * the cards dealt, the shuffles, the chips moved and the outcomes. Enough to audit a session,
+ * and, with the shuffle seed, to replay it (see {@link HandJournal}).
+ * <p>
+ * Called on the thread playing the table, with primitives only, so a listener can record
+ * every event without allocating.
+ */
+public interface GameListener {
+    // seat index of the table, and of actions for the whole table (RESTART)
+    int TABLE = -1;
+
+    GameListener NONE = new GameListener() {
+    };
+
+    // an action passed the engine's checks and is about to be played, bid is only set for DEAL
+    default void onAction(final int seat, final Action action, final int bid) {
+    }
+
+    // the returned cards were shuffled back into the shoe, which now holds the given number of cards
+    default void onShuffle(final int cards) {
+    }
+
+    // a card is dealt to a seat's hand, or to the table
+    default void onCard(final int seat, final int hand, final int card) {
+    }
+
+    // chips from the table to the seat, negative from the seat to the table
+    default void onPayout(final int seat, final int amount) {
+    }
+
+    // a hand is decided
+    default void onSettle(final int seat, final int hand, final Outcome outcome) {
+    }
+}
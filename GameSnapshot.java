@@ -0,0 +1,171 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * The whole state of a table in a few hundred bytes: both decks in order, the table's and every
+ * seat's hands, bids and earnings, the shuffle generator's state and where the table's
+ * {@link HandJournal} was at that moment. Together with the journal's records after that offset,
+ * a table resumes exactly where it stopped, without replaying the whole session.
+ * <pre>
+ * int magic, int version, long journal offset, long random state, rules, byte seats,
+ * byte round state, long table earning, table cards, serving deck, return deck,
+ * seats: byte state, long earning, byte insured, byte hands, byte current,
+ *        hands: byte state, byte outcome, int bid, byte double down, byte split, cards,
+ * int CRC32 of everything before
+ * </pre>
+ * A snapshot is written aside, forced, and moved over the previous one, so a crash leaves
+ * either the old or the new snapshot; the checksum catches anything else.
+ */
+public final class GameSnapshot {
+    private static final int MAGIC = 0x424A5353; // "BJSS"
+    private static final int VERSION = 2;
+
+    private final BlackJackEngine engine;
+    private final long journalOffset;
+
+    private GameSnapshot(final BlackJackEngine engine, final long journalOffset) {
+        this.engine = engine;
+        this.journalOffset = journalOffset;
+    }
+
+    // the restored table, with no listener
+    public BlackJackEngine getEngine() {
+        return engine;
+    }
+
+    // the journal's length when the snapshot was taken
+    public long getJournalOffset() {
+        return journalOffset;
+    }
+
+    // between actions only, the table must shuffle with a ReplayableRandom
+    public static void write(final Path file, final BlackJackEngine engine, final long journalOffset) throws IOException {
+        if (!(engine.servingCardDeck.getRandom() instanceof ReplayableRandom)) {
+            throw new IllegalStateException("Snapshots need a " + RandomSource.REPLAYABLE + " random source!");
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate(size(engine)).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(journalOffset)
+                .putLong(((ReplayableRandom) engine.servingCardDeck.getRandom()).getState());
+        HandJournal.putRules(buffer, engine.rules);
+        buffer.put((byte) engine.seats.length)
+                .put((byte) engine.roundState.ordinal())
+                .putLong(engine.tableEarning);
+        putCards(buffer, engine.tableCards, engine.tableHand);
+        engine.servingCardDeck.save(buffer);
+        engine.returnCardDeck.save(buffer);
+        for (final Seat seat : engine.seats) {
+            buffer.put((byte) seat.state.ordinal())
+                    .putLong(seat.earning)
+                    .put((byte) (seat.insured ? 1 : 0))
+                    .put((byte) seat.handCount)
+                    .put((byte) seat.current);
+            for (int i = 0; i < seat.handCount; i++) {
+                final Hand hand = seat.hands[i];
+                buffer.put((byte) hand.state.ordinal())
+                        .put((byte) hand.outcome.ordinal())
+                        .putInt(hand.bid)
+                        .put((byte) (hand.canDoubleDown ? 1 : 0))
+                        .put((byte) (hand.split ? 1 : 0));
+                putCards(buffer, hand.cards, hand.value);
+            }
+        }
+        final CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+
+        // write aside and move, so that a crash never leaves a half written snapshot
+        final Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (final FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // throws IOException if the snapshot is not one or is damaged
+    public static GameSnapshot read(final Path file) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < 2 * Integer.BYTES + Integer.BYTES || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException(file + " is not a snapshot!");
+        }
+        final CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.limit() - Integer.BYTES);
+        if ((int) crc.getValue() != buffer.getInt(buffer.limit() - Integer.BYTES)) {
+            throw new IOException(file + " is damaged!");
+        }
+
+        try {
+            final long journalOffset = buffer.getLong();
+            final ReplayableRandom random = new ReplayableRandom(0);
+            final long state = buffer.getLong();
+            final RuleSet rules = HandJournal.getRules(buffer);
+            final BlackJackEngine engine = new BlackJackEngine(rules, buffer.get(), random);
+            // the new table shuffled once, continue from the saved state
+            random.setState(state);
+
+            engine.roundState = BlackJackEngine.State.values()[buffer.get()];
+            engine.tableEarning = buffer.getLong();
+            engine.tableHand = getCards(buffer, engine.tableCards);
+            engine.servingCardDeck.restore(buffer);
+            engine.returnCardDeck.restore(buffer);
+            for (final Seat seat : engine.seats) {
+                seat.state = BlackJackEngine.State.values()[buffer.get()];
+                seat.earning = buffer.getLong();
+                seat.insured = buffer.get() != 0;
+                seat.handCount = buffer.get();
+                seat.current = buffer.get();
+                for (int i = 0; i < seat.handCount; i++) {
+                    final Hand hand = seat.hands[i];
+                    hand.state = BlackJackEngine.State.values()[buffer.get()];
+                    hand.outcome = Outcome.values()[buffer.get()];
+                    hand.bid = buffer.getInt();
+                    hand.canDoubleDown = buffer.get() != 0;
+                    hand.split = buffer.get() != 0;
+                    hand.value = getCards(buffer, hand.cards);
+                }
+            }
+            // posts nothing: a table resumed from it may not keep it (see HandJournal.resume), and the one
+            // it keeps posts its earnings when given a ledger
+            return new GameSnapshot(engine, journalOffset);
+        } catch (final RuntimeException e) {
+            throw new IOException(file + " does not hold a valid table!", e);
+        }
+    }
+
+    private static int size(final BlackJackEngine engine) {
+        // header, rules and table, then decks and seats at their largest
+        int size = 256 + engine.servingCardDeck.capacity() + engine.returnCardDeck.capacity();
+        size += engine.seats.length * (16 + BlackJackEngine.MAX_HANDS * (16 + BlackJackEngine.MAX_CARDS));
+        return size;
+    }
+
+    private static void putCards(final ByteBuffer buffer, final List<Card> cards, final int value) {
+        buffer.putInt(value).put((byte) cards.size());
+        for (int i = 0; i < cards.size(); i++) {
+            buffer.put((byte) cards.get(i).getIndex());
+        }
+    }
+
+    // the cards go to the list, returns the hand value
+    private static int getCards(final ByteBuffer buffer, final List<Card> cards) {
+        final int value = buffer.getInt();
+        final int count = buffer.get();
+        cards.clear();
+        for (int i = 0; i < count; i++) {
+            cards.add(Card.of(buffer.get()));
+        }
+        return value;
+    }
+}
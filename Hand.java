@@ -0,0 +1,47 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// one of a seat's hands, more than one after a split; allocated once and reused
+class Hand {
+    final List<Card> cards = new ArrayList<>(BlackJackEngine.MAX_CARDS); // cards in this hand
+    int value = HandValue.EMPTY; // see HandValue
+
+    BlackJackEngine.State state = BlackJackEngine.State.DEAL;
+    Outcome outcome = Outcome.IN_PROGRESS;
+
+    int bid; // bid on this hand
+    boolean canDoubleDown; // double down is only allowed before the first hit
+    boolean split; // made by splitting, so 21 with 2 cards is not a black jack
+
+    void add(final Card card) {
+        cards.add(card);
+        value = HandValue.add(value, card);
+    }
+
+    // the second card moves to the given (empty) hand
+    void splitInto(final Hand other) {
+        final Card card = cards.remove(1);
+        value = HandValue.add(HandValue.EMPTY, cards.get(0));
+        split = true;
+
+        other.add(card);
+        other.bid = bid;
+        other.split = true;
+        other.state = BlackJackEngine.State.PLAY;
+    }
+
+    boolean isSplitAces() {
+        return split && cards.get(0).getRank() == Rank.Ace;
+    }
+
+    void clear(final Deck returnCardDeck) {
+        returnCardDeck.addCards(cards);
+        cards.clear();
+        value = HandValue.EMPTY;
+        state = BlackJackEngine.State.DEAL;
+        outcome = Outcome.IN_PROGRESS;
+        bid = 0;
+        canDoubleDown = false;
+        split = false;
+    }
+}
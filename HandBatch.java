@@ -0,0 +1,67 @@
+/**
+ * Many deals at once, for bulk evaluation by a {@link HandEvaluator}: one array per card
+ * position and one element per hand (structure of arrays), so that an evaluator works on
+ * consecutive hands together.
+ * <p>
+ * Inputs are card values, 1 (ace) to 10. A player hand is its cards from position 0, then 0s.
+ * A table hand is the upcard and the hole card, then the cards the shoe would serve next; the
+ * table draws them as it must, and stops early if it meets a 0 (give it enough cards). The
+ * outputs are written by the evaluator, with {@link #SOFT}, {@link #BUST} and
+ * {@link #BLACK_JACK} as flags, like {@link HandValue}.
+ */
+public final class HandBatch {
+    public static final int SOFT = 1;
+    public static final int BUST = 2;
+    public static final int BLACK_JACK = 4;
+
+    // [card position][hand]
+    public final int[][] playerCards;
+    public final int[][] tableCards;
+
+    // per hand, written by the evaluator
+    public final int[] hardTotals;
+    public final int[] scores;
+    public final int[] flags;
+    public final int[] tableScores;
+    public final int[] tableFlags;
+    public final int[] tableCardCounts;
+
+    private int size;
+
+    public HandBatch(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1!");
+        }
+        playerCards = new int[BlackJackEngine.MAX_CARDS][capacity];
+        tableCards = new int[BlackJackEngine.MAX_CARDS][capacity];
+        hardTotals = new int[capacity];
+        scores = new int[capacity];
+        flags = new int[capacity];
+        tableScores = new int[capacity];
+        tableFlags = new int[capacity];
+        tableCardCounts = new int[capacity];
+        size = capacity;
+    }
+
+    public int capacity() {
+        return hardTotals.length;
+    }
+
+    // hands 0 to size - 1 are evaluated
+    public int size() {
+        return size;
+    }
+
+    public void setSize(final int size) {
+        if (size < 0 || size > capacity()) {
+            throw new IllegalArgumentException("Size must be 0 to " + capacity() + "!");
+        }
+        this.size = size;
+    }
+
+    // the flags of a HandValue
+    static int flags(final int hand) {
+        return (HandValue.isSoft(hand) ? SOFT : 0) | (HandValue.isBust(hand) ? BUST : 0)
+                | (HandValue.isBlackJack(hand) ? BLACK_JACK : 0);
+    }
+}
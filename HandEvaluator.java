@@ -0,0 +1,39 @@
+/**
+ * Scores a {@link HandBatch} in bulk, with the rules of {@link HandValue} and the table's draw
+ * rule ({@link BlackJackEngine#mustDraw}), for what-if evaluation of many precomputed deals.
+ * <p>
+ * {@link #create()} returns the SIMD evaluator (vector/VectorHandEvaluator.java, with the
+ * incubating Vector API) when it was compiled and the JVM runs with
+ * --add-modules jdk.incubator.vector, and {@link ScalarHandEvaluator} otherwise. The vector
+ * source is kept apart so that the rest compiles without the module:
+ * <pre>
+ * javac -d out *.java
+ * javac --add-modules jdk.incubator.vector -cp out -d out vector/*.java
+ * java --add-modules jdk.incubator.vector -cp out ...
+ * </pre>
+ * Both give the same results, see Benchmarks for how fast.
+ */
+public interface HandEvaluator {
+
+    // -Dblackjack.vector=false uses the scalar evaluator even where the vector one is available
+    boolean VECTOR = !"false".equalsIgnoreCase(System.getProperty("blackjack.vector"));
+
+    String getName();
+
+    // the hard totals, scores and flags of the player hands
+    void scorePlayers(HandBatch batch);
+
+    // plays the table hands out, then their scores, flags and card counts
+    void playTables(HandBatch batch, boolean hitSoft17);
+
+    static HandEvaluator create() {
+        if (VECTOR && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (HandEvaluator) Class.forName("VectorHandEvaluator").getDeclaredConstructor().newInstance();
+            } catch (final ReflectiveOperationException | LinkageError e) {
+                // not compiled, see vector/
+            }
+        }
+        return new ScalarHandEvaluator();
+    }
+}
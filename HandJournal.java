@@ -0,0 +1,643 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Append-only binary journal of a table's session: every action, card, shuffle, payout and
+ * outcome reported by the engine (see {@link GameListener}), after a header with the rules and
+ * the shuffle seed. {@link #replay(Path)} plays the actions again on a table shuffled with the
+ * same seed, and checks that every event comes out exactly as it was written.
+ * <pre>
+ * header:  int magic, int version, byte random source, long seed, byte seats, rules (see writeHeader)
+ * record:  short length (of type and payload), byte type, payload
+ *   ACTION   byte seat, byte action, int bid
+ *   SHUFFLE  short cards in the shoe
+ *   CARD     byte seat, byte hand, byte card index
+ *   PAYOUT   byte seat, int amount
+ *   SETTLE   byte seat, byte hand, byte outcome
+ * </pre>
+ * Records are gathered in a buffer and written together. The file is forced to disk (group commit)
+ * before an action once the commit interval has passed, or on {@link #commit()} and close.
+ * A crash loses at most the actions of the last interval; a torn last record is ignored by the reader.
+ * <p>
+ * With a {@link RandomSource#REPLAYABLE} source the journal can also keep a {@link GameSnapshot}
+ * of its table, and {@link #resume(Path, Path)} restores the table from the snapshot and replays
+ * only the records written after it. Not thread safe, a journal belongs to the thread playing its table.
+ */
+public class HandJournal implements GameListener, Closeable {
+    private static final int MAGIC = 0x424A484A; // "BJHJ"
+    private static final int VERSION = 1;
+
+    static final byte ACTION = 1;
+    static final byte SHUFFLE = 2;
+    static final byte CARD = 3;
+    static final byte PAYOUT = 4;
+    static final byte SETTLE = 5;
+
+    // largest record, length included
+    private static final int MAX_RECORD = Short.BYTES + 1 + 6;
+
+    private static final long COMMIT_NANOS = Long.getLong("blackjack.journalCommitMillis", 10) * 1_000_000L;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+    private final BlackJackEngine engine;
+
+    private long written; // bytes in the file
+    private long events;
+    private long lastCommit = System.nanoTime();
+
+    private Path snapshotFile;
+    private int snapshotRounds;
+    private int rounds; // since the last snapshot
+
+    private HandJournal(final FileChannel channel, final BlackJackEngine engine, final long written) {
+        this.channel = channel;
+        this.engine = engine;
+        this.written = written;
+        engine.setListener(this);
+    }
+
+    // a new journal file, and its table shuffled by the source with the seed
+    public static HandJournal create(final Path file, final RuleSet rules, final int seats,
+                                     final RandomSource source, final long seed) throws IOException {
+        if (!source.isReproducible()) {
+            throw new IllegalArgumentException(source + " cannot be replayed!");
+        }
+        final FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        final HandJournal journal = new HandJournal(channel, new BlackJackEngine(rules, seats, source.create(seed)), 0);
+        writeHeader(journal.buffer, rules, seats, source, seed);
+        journal.commit();
+        return journal;
+    }
+
+    /**
+     * Reopens a journal after the application stopped, or crashed. The table is restored from the
+     * snapshot if there is a valid one (otherwise from the seed), then the journal's records after
+     * it are replayed. New records are appended after the last complete action. The table has no
+     * ledger: its earnings go to one, once, when it is given one.
+     */
+    public static HandJournal resume(final Path file, final Path snapshotFile) throws IOException {
+        final Replay replay;
+        try (final Reader reader = new Reader(file)) {
+            GameSnapshot snapshot = null;
+            if (snapshotFile != null && Files.exists(snapshotFile)) {
+                try {
+                    snapshot = GameSnapshot.read(snapshotFile);
+                } catch (final IOException e) {
+                    // replay the whole journal instead, but a damaged snapshot is worth knowing about
+                    System.err.println("Snapshot " + snapshotFile + " not used, replaying the whole journal: " + e.getMessage());
+                }
+            }
+            if (snapshot != null && reader.seek(snapshot.getJournalOffset())) {
+                replay = replay(reader, snapshot.getEngine());
+            } else {
+                replay = replay(reader, new BlackJackEngine(reader.getRules(), reader.getSeats(),
+                        reader.getSource().create(reader.getSeed())));
+            }
+        }
+
+        final FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE);
+        channel.truncate(replay.end);
+        channel.position(replay.end);
+        final HandJournal journal = new HandJournal(channel, replay.engine, replay.end);
+
+        // events of the last action that did not make it to the file before the crash
+        replay.expected.flip().position(replay.compared);
+        journal.buffer.put(replay.expected);
+        journal.commit();
+        return journal;
+    }
+
+    // the table this journal records
+    public BlackJackEngine getEngine() {
+        return engine;
+    }
+
+    public long getEvents() {
+        return events;
+    }
+
+    // length of the journal, written or not
+    public long getPosition() {
+        return written + buffer.position();
+    }
+
+    // snapshots the table to the file before every given number of rounds
+    public void enableSnapshots(final Path file, final int everyRounds) {
+        if (!(engine.getServingCardDeck().getRandom() instanceof ReplayableRandom)) {
+            throw new IllegalStateException("Snapshots need a " + RandomSource.REPLAYABLE + " random source!");
+        }
+        snapshotFile = file;
+        snapshotRounds = everyRounds;
+    }
+
+    // commits the journal, then snapshots the table, only between actions
+    public void snapshot() throws IOException {
+        commit();
+        GameSnapshot.write(snapshotFile, engine, getPosition());
+        rounds = 0;
+    }
+
+    @Override
+    public void onAction(final int seat, final Action action, final int bid) {
+        try {
+            // nothing has changed yet, so the table can be snapshot before a new round
+            if (snapshotFile != null && action == Action.DEAL && seat == 0 && ++rounds >= snapshotRounds) {
+                snapshot();
+            } else if (System.nanoTime() - lastCommit >= COMMIT_NANOS) {
+                // commit between actions, so that a crash cuts the journal at an action
+                commit();
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        reserve();
+        putAction(buffer, seat, action, bid);
+    }
+
+    @Override
+    public void onShuffle(final int cards) {
+        reserve();
+        putShuffle(buffer, cards);
+    }
+
+    @Override
+    public void onCard(final int seat, final int hand, final int card) {
+        reserve();
+        putCard(buffer, seat, hand, card);
+    }
+
+    @Override
+    public void onPayout(final int seat, final int amount) {
+        reserve();
+        putPayout(buffer, seat, amount);
+    }
+
+    @Override
+    public void onSettle(final int seat, final int hand, final Outcome outcome) {
+        reserve();
+        putSettle(buffer, seat, hand, outcome);
+    }
+
+    // writes the buffered records and forces them to disk
+    public void commit() throws IOException {
+        write();
+        channel.force(false);
+        lastCommit = System.nanoTime();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (channel) {
+            commit();
+        }
+    }
+
+    // room for one more record, writing (without forcing) a full buffer
+    private void reserve() {
+        events++;
+        if (buffer.remaining() < MAX_RECORD) {
+            try {
+                write();
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void write() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    static void putAction(final ByteBuffer buffer, final int seat, final Action action, final int bid) {
+        buffer.putShort((short) 7).put(ACTION).put((byte) seat).put((byte) action.ordinal()).putInt(bid);
+    }
+
+    static void putShuffle(final ByteBuffer buffer, final int cards) {
+        buffer.putShort((short) 3).put(SHUFFLE).putShort((short) cards);
+    }
+
+    static void putCard(final ByteBuffer buffer, final int seat, final int hand, final int card) {
+        buffer.putShort((short) 4).put(CARD).put((byte) seat).put((byte) hand).put((byte) card);
+    }
+
+    static void putPayout(final ByteBuffer buffer, final int seat, final int amount) {
+        buffer.putShort((short) 6).put(PAYOUT).put((byte) seat).putInt(amount);
+    }
+
+    static void putSettle(final ByteBuffer buffer, final int seat, final int hand, final Outcome outcome) {
+        buffer.putShort((short) 4).put(SETTLE).put((byte) seat).put((byte) hand).put((byte) outcome.ordinal());
+    }
+
+    private static void writeHeader(final ByteBuffer buffer, final RuleSet rules, final int seats,
+                                    final RandomSource source, final long seed) {
+        buffer.putInt(MAGIC).putInt(VERSION)
+                .put((byte) source.ordinal()).putLong(seed).put((byte) seats);
+        putRules(buffer, rules);
+    }
+
+    static void putRules(final ByteBuffer buffer, final RuleSet rules) {
+        buffer.put((byte) rules.getDecks())
+                .putDouble(rules.getPenetration())
+                .put((byte) (rules.hitsSoft17() ? 1 : 0))
+                .putShort((short) rules.getBlackJackPayoutNumerator())
+                .putShort((short) rules.getBlackJackPayoutDenominator())
+                .put((byte) rules.getSurrender().ordinal())
+                .put((byte) rules.getInsurance().ordinal())
+                .put((byte) rules.getInsurancePayout())
+                .put((byte) (rules.isDoubleAfterSplit() ? 1 : 0))
+                .put((byte) rules.getMaxHands())
+                .put((byte) (rules.isResplitAces() ? 1 : 0))
+                .put((byte) (rules.isHitSplitAces() ? 1 : 0));
+    }
+
+    static RuleSet getRules(final ByteBuffer buffer) {
+        return RuleSet.builder()
+                .decks(buffer.get())
+                .penetration(buffer.getDouble())
+                .hitSoft17(buffer.get() != 0)
+                .blackJackPayout(buffer.getShort(), buffer.getShort())
+                .surrender(RuleSet.Surrender.values()[buffer.get()])
+                .insurance(RuleSet.Insurance.values()[buffer.get()])
+                .insurancePayout(buffer.get())
+                .doubleAfterSplit(buffer.get() != 0)
+                .maxHands(buffer.get())
+                .resplitAces(buffer.get() != 0)
+                .hitSplitAces(buffer.get() != 0)
+                .build();
+    }
+
+    /**
+     * Reads a journal record by record, from read-only mappings of the file: a window of it at a time,
+     * moved on as the records are read, so that a journal can outgrow what one mapping (an int) reaches.
+     * The fields of the last record read are valid until the next call to {@link #next()}.
+     */
+    public static class Reader implements Closeable {
+        private static final long WINDOW = 64 << 20;
+        // a whole record is in the window before it is read, unless the file ends first
+        private static final int LARGEST_RECORD = Short.BYTES + Short.MAX_VALUE;
+
+        private final FileChannel channel;
+        private final long size;
+        private long base; // file offset of the window
+        private ByteBuffer records; // the window
+
+        private final RuleSet rules;
+        private final int seats;
+        private final RandomSource source;
+        private final long seed;
+
+        private int start; // of the last record in the window, length included
+        private int type;
+        private int seat;
+        private int hand;
+        private int code; // action, card or outcome
+        private int value; // bid, amount or cards
+
+        public Reader(final Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                size = channel.size();
+                map(0);
+                if (records.remaining() < 2 * Integer.BYTES || records.getInt() != MAGIC || records.getInt() != VERSION) {
+                    throw new IOException(file + " is not a hand journal!");
+                }
+                source = RandomSource.values()[records.get()];
+                seed = records.getLong();
+                seats = records.get();
+                rules = HandJournal.getRules(records);
+            } catch (final IOException e) {
+                channel.close();
+                throw e;
+            } catch (final RuntimeException e) {
+                channel.close();
+                throw new IOException(file + " has a broken header!", e);
+            }
+            start = records.position();
+        }
+
+        private void map(final long offset) throws IOException {
+            base = offset;
+            records = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(WINDOW, size - offset))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        // continues at the given offset, false if the journal is shorter
+        boolean seek(final long offset) throws IOException {
+            if (offset < position() || offset > size) {
+                return false;
+            }
+            map(offset);
+            start = 0;
+            return true;
+        }
+
+        // false at the end, or at a record torn by a crash
+        public boolean next() {
+            if (records.remaining() < LARGEST_RECORD && base + records.limit() < size) {
+                try {
+                    map(position());
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            if (records.remaining() < Short.BYTES) {
+                return false;
+            }
+            start = records.position();
+            final int length = records.getShort(start);
+            if (length <= 0 || records.remaining() < Short.BYTES + length) {
+                return false;
+            }
+            records.position(start + Short.BYTES);
+            type = records.get();
+            switch (type) {
+                case ACTION:
+                    seat = records.get();
+                    code = records.get();
+                    value = records.getInt();
+                    break;
+                case SHUFFLE:
+                    value = records.getShort();
+                    break;
+                case CARD:
+                    seat = records.get();
+                    hand = records.get();
+                    code = records.get();
+                    break;
+                case PAYOUT:
+                    seat = records.get();
+                    value = records.getInt();
+                    break;
+                case SETTLE:
+                    seat = records.get();
+                    hand = records.get();
+                    code = records.get();
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown record type " + type + " at " + (base + start));
+            }
+            records.position(start + Short.BYTES + length);
+            return true;
+        }
+
+        public RuleSet getRules() {
+            return rules;
+        }
+
+        public int getSeats() {
+            return seats;
+        }
+
+        public RandomSource getSource() {
+            return source;
+        }
+
+        public long getSeed() {
+            return seed;
+        }
+
+        public int getType() {
+            return type;
+        }
+
+        public int getSeat() {
+            return seat;
+        }
+
+        public int getHand() {
+            return hand;
+        }
+
+        public Action getAction() {
+            return Action.values()[code];
+        }
+
+        public Card getCard() {
+            return Card.of(code);
+        }
+
+        public Outcome getOutcome() {
+            return Outcome.values()[code];
+        }
+
+        // bid of an action, amount of a payout, cards of a shuffle
+        public int getValue() {
+            return value;
+        }
+
+        // the bytes of the last record, length included
+        ByteBuffer record() {
+            return records.slice(start, records.position() - start);
+        }
+
+        // offset of the next record
+        long position() {
+            return base + records.position();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Plays the journal's actions on a new table shuffled with its seed, and checks that every
+     * recorded event is reproduced byte for byte.
+     *
+     * @return the table after the last action
+     * @throws IllegalStateException when the journal and the replay differ
+     */
+    public static BlackJackEngine replay(final Path file) throws IOException {
+        try (final Reader reader = new Reader(file)) {
+            return replay(reader, new BlackJackEngine(reader.getRules(), reader.getSeats(),
+                    reader.getSource().create(reader.getSeed()))).engine;
+        }
+    }
+
+    // plays the records from the reader's position on the table
+    private static Replay replay(final Reader reader, final BlackJackEngine engine) {
+        final Replay replay = new Replay(engine, reader.position());
+        final ByteBuffer expected = replay.expected;
+        final int[] bids = new int[reader.getSeats()];
+        int bidCount = 0;
+        while (reader.next()) {
+            if (replay.compared == expected.position()) {
+                // everything the last action did was checked, this record must be the next action
+                expected.clear();
+                replay.compared = 0;
+                if (reader.getType() != ACTION || (bidCount > 0 && reader.getAction() != Action.DEAL)) {
+                    throw mismatch(reader, "an action");
+                }
+                if (reader.getAction() == Action.DEAL) {
+                    // one DEAL per seat, the table deals once every seat has bid
+                    bids[bidCount++] = reader.getValue();
+                    if (bidCount < bids.length) {
+                        continue;
+                    }
+                    bidCount = 0;
+                    engine.deal(bids);
+                    // the other seats' DEAL records were read before the deal, check from this one
+                    replay.compared = skip(expected, bids.length - 1);
+                } else {
+                    play(engine, reader.getSeat(), reader.getAction());
+                }
+            }
+            final ByteBuffer record = reader.record();
+            if (expected.position() - replay.compared < record.remaining()
+                    || !record.equals(expected.slice(replay.compared, record.remaining()))) {
+                throw mismatch(reader, "the replayed event");
+            }
+            replay.compared += record.remaining();
+            replay.end = reader.position();
+        }
+        // a journal cut by a crash may end anywhere in its last action, or in the seats' bids
+        return replay;
+    }
+
+    // a table replaying a journal, and the events it reproduced
+    private static final class Replay implements GameListener {
+        final BlackJackEngine engine;
+        final ByteBuffer expected = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+        int compared; // bytes of expected matched by the journal
+        long end; // offset after the last record of a played action
+
+        Replay(final BlackJackEngine engine, final long end) {
+            this.engine = engine;
+            this.end = end;
+            engine.setListener(this);
+        }
+
+        @Override
+        public void onAction(final int seat, final Action action, final int bid) {
+            putAction(expected, seat, action, bid);
+        }
+
+        @Override
+        public void onShuffle(final int cards) {
+            putShuffle(expected, cards);
+        }
+
+        @Override
+        public void onCard(final int seat, final int hand, final int card) {
+            putCard(expected, seat, hand, card);
+        }
+
+        @Override
+        public void onPayout(final int seat, final int amount) {
+            putPayout(expected, seat, amount);
+        }
+
+        @Override
+        public void onSettle(final int seat, final int hand, final Outcome outcome) {
+            putSettle(expected, seat, hand, outcome);
+        }
+    }
+
+    // offset after the given number of records at the start of the buffer
+    private static int skip(final ByteBuffer buffer, final int records) {
+        int offset = 0;
+        for (int i = 0; i < records; i++) {
+            offset += Short.BYTES + buffer.getShort(offset);
+        }
+        return offset;
+    }
+
+    private static void play(final BlackJackEngine engine, final int seat, final Action action) {
+        switch (action) {
+            case INSURANCE:
+                engine.insure(seat);
+                break;
+            case SURRENDER:
+                engine.surrender(seat);
+                break;
+            case PROCEED:
+                engine.proceed(seat);
+                break;
+            case DOUBLE_DOWN:
+                engine.doubleDown(seat);
+                break;
+            case HIT:
+                engine.hit(seat);
+                break;
+            case STAY:
+                engine.stay(seat);
+                break;
+            case SPLIT:
+                engine.split(seat);
+                break;
+            case RESTART:
+                engine.restart();
+                break;
+            default:
+                throw new IllegalStateException("Unexpected " + action);
+        }
+    }
+
+    private static IllegalStateException mismatch(final Reader reader, final String expected) {
+        return new IllegalStateException("Journal does not match the replay at offset "
+                + (reader.position() - reader.record().remaining()) + ", expected " + expected);
+    }
+
+    // usage: HandJournal record [file] [hands] [seats] [seed]
+    //    or: HandJournal replay [file]
+    public static void main(final String[] args) throws IOException {
+        Metrics.register();
+        final boolean record = args.length == 0 || args[0].equals("record");
+        final Path file = Paths.get(args.length > 1 ? args[1] : "blackjack.journal");
+
+        final long start = System.nanoTime();
+        if (record) {
+            final long hands = args.length > 2 ? Long.parseLong(args[2]) : 1_000_000L;
+            final int seats = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+            final long seed = args.length > 4 ? Long.parseLong(args[4]) : System.nanoTime();
+            final RuleSet rules = RuleSet.DEFAULT.toBuilder().decks(6).penetration(0.75).build();
+            final long events;
+            try (final HandJournal journal = create(file, rules, seats, RandomSource.SPLITTABLE, seed)) {
+                final BlackJackEngine engine = journal.getEngine();
+                final Advisor advisor = Advisor.forRules(rules);
+                for (long i = 0; i < hands; i++) {
+                    playRound(engine, advisor);
+                    engine.restart();
+                }
+                events = journal.getEvents();
+            }
+            final double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%,d hands, %,d events in %.2f s, %,.0f events/s%n", hands, events, seconds, events / seconds);
+        } else {
+            final BlackJackEngine engine = replay(file);
+            final double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("Replayed in %.2f s, table earning %d%n", seconds, engine.getTableEarning());
+        }
+    }
+
+    // basic strategy for every seat, aces and eights are split
+    private static void playRound(final BlackJackEngine engine, final Advisor advisor) {
+        engine.deal(SimulationStats.BID);
+        final int upcard = engine.getTableCards().get(0).getValue();
+        while (engine.getState() != BlackJackEngine.State.FINISHED) {
+            final int seat = engine.getCurrentSeat();
+            final List<Card> cards = engine.getPlayerCards(seat);
+            if (engine.canSplit(seat) && (cards.get(0).getRank() == Rank.Ace || cards.get(0).getRank() == Rank.Eight)) {
+                engine.split(seat);
+                continue;
+            }
+            engine.apply(advisor.basicStrategy(engine.getPlayerHand(seat), upcard,
+                    engine.getState(seat), engine.canDoubleDown(seat)), SimulationStats.BID);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * A hand's value packed in one int, so that hands are scored without objects.
+ * <pre>
+ * bits  0-4   hard total, aces counted as 1 (capped at 31, which is a bust anyway)
+ * bit   5     has an ace
+ * bits  6-10  number of cards
+ * bit   11    black jack (21 with the first 2 cards)
+ * bit   12    bust
+ * bits  16-20 score, an ace counted as 11 unless that goes over 21
+ * </pre>
+ * Adding a card is one lookup in a precomputed table.
+ */
+public class HandValue {
+    public static final int EMPTY = 0;
+
+    static final int HARD_MASK = 0x1F;
+    static final int ACE = 1 << 5;
+    static final int COUNT_SHIFT = 6;
+    static final int COUNT_MASK = 0x1F << COUNT_SHIFT;
+    static final int BLACK_JACK = 1 << 11;
+    static final int BUST = 1 << 12;
+    static final int SCORE_SHIFT = 16;
+    static final int SCORE_MASK = 0x1F << SCORE_SHIFT;
+
+    // (hard total, ace, is this the second card) x card value -> new value without the count
+    private static final int[] ADD = new int[128 * 16];
+
+    static {
+        for (int state = 0; state < 128; state++) {
+            final int hard = state & HARD_MASK;
+            final boolean ace = (state & ACE) != 0;
+            final boolean secondCard = (state & 64) != 0;
+            for (int value = 1; value <= 10; value++) {
+                final int newHard = Math.min(hard + value, HARD_MASK);
+                final boolean newAce = ace || value == 1;
+                final int score = newAce && newHard + 10 <= 21 ? newHard + 10 : newHard;
+
+                int entry = newHard | (newAce ? ACE : 0) | (Math.min(score, 31) << SCORE_SHIFT);
+                if (newHard > 21) {
+                    entry |= BUST;
+                }
+                if (secondCard && score == 21) {
+                    entry |= BLACK_JACK;
+                }
+                ADD[state << 4 | value] = entry;
+            }
+        }
+    }
+
+    private HandValue() {
+    }
+
+    // value is 1 (ace) to 10
+    public static int add(final int hand, final int value) {
+        final int count = hand & COUNT_MASK;
+        final int state = (hand & (HARD_MASK | ACE)) | (count == 1 << COUNT_SHIFT ? 64 : 0);
+        return ADD[state << 4 | value] | (count + (1 << COUNT_SHIFT));
+    }
+
+    public static int add(final int hand, final Card card) {
+        return add(hand, card.getValue());
+    }
+
+    public static int hardTotal(final int hand) {
+        return hand & HARD_MASK;
+    }
+
+    public static boolean hasAce(final int hand) {
+        return (hand & ACE) != 0;
+    }
+
+    // an ace is counted as 11
+    public static boolean isSoft(final int hand) {
+        return (hand & ACE) != 0 && (hand & HARD_MASK) + 10 <= 21;
+    }
+
+    public static int cardCount(final int hand) {
+        return (hand & COUNT_MASK) >>> COUNT_SHIFT;
+    }
+
+    public static boolean isBlackJack(final int hand) {
+        return (hand & BLACK_JACK) != 0;
+    }
+
+    public static boolean isBust(final int hand) {
+        return (hand & BUST) != 0;
+    }
+
+    public static int score(final int hand) {
+        return (hand & SCORE_MASK) >>> SCORE_SHIFT;
+    }
+
+    // total the table draws on: an ace is always counted as 11, see BlackJack
+    public static int drawTotal(final int hand) {
+        return (hand & HARD_MASK) + ((hand & ACE) != 0 ? 10 : 0);
+    }
+
+    public static String toString(final int hand) {
+        return "Hand[hard=" + hardTotal(hand) + ", ace=" + hasAce(hand) + ", cards=" + cardCount(hand)
+                + ", score=" + score(hand) + (isBlackJack(hand) ? ", black jack" : "") + (isBust(hand) ? ", bust" : "") + "]";
+    }
+}
@@ -0,0 +1,59 @@
+import javax.swing.*;
+import java.awt.*;
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Loads images from the "images" folder on first use and keeps the most recently
+ * used ones, so creating decks costs no I/O and memory stays flat. Images come from the
+ * folder's {@link AssetBundle} when it was packed, decoding only the ones it does not have.
+ * Size can be changed with -Dblackjack.imageCacheSize (default 64, enough for a deck and the status images).
+ */
+public class ImageCache {
+    private static final int MAX_IMAGES = Integer.getInteger("blackjack.imageCacheSize", 64);
+
+    // access ordered, so that the least recently drawn image is evicted first
+    private static final Map<String, ImageIcon> images = new LinkedHashMap<>(MAX_IMAGES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, ImageIcon> eldest) {
+            return size() > MAX_IMAGES;
+        }
+    };
+
+    private ImageCache() {
+    }
+
+    public static synchronized ImageIcon get(final String imageFileName) {
+        ImageIcon icon = images.get(imageFileName);
+        if (icon == null) {
+            final AssetBundle bundle = AssetBundle.get();
+            if (bundle != null && bundle.contains(imageFileName)) {
+                icon = new ImageIcon(bundle.getImage(imageFileName));
+                images.put(imageFileName, icon);
+                return icon;
+            }
+            icon = decode(imageFileName);
+            images.put(imageFileName, icon);
+        }
+        return icon;
+    }
+
+    // the image file itself, without the cache or the bundle; createImage, unlike getImage, does not
+    // keep every image it decoded for the life of the process
+    static ImageIcon decode(final String imageFileName) {
+        final URL url = ImageCache.class.getResource("images/" + imageFileName);
+        if (url == null) {
+            throw new IllegalStateException("Missing image: images/" + imageFileName);
+        }
+        return new ImageIcon(Toolkit.getDefaultToolkit().createImage(url));
+    }
+
+    public static synchronized int size() {
+        return images.size();
+    }
+
+    public static synchronized void clear() {
+        images.clear();
+    }
+}
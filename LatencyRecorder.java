@@ -0,0 +1,110 @@
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of durations in nanoseconds, laid out like HdrHistogram: values below 32 have their
+ * own bucket, above that every power of two is split in 16 buckets, so a percentile is within
+ * about 6% of the recorded value. Buckets are {@link LongAdder}s, so threads recording at the
+ * same time do not contend, and recording allocates nothing.
+ */
+public class LatencyRecorder {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // up to 2^39 ns (9 minutes), longer durations are counted in the last bucket
+    private static final int BUCKETS = 40 * SUB_BUCKETS;
+
+    private final String name;
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public LatencyRecorder(final String name) {
+        this.name = name;
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void record(final long nanos) {
+        final long value = Math.max(nanos, 0);
+        buckets[index(value)].increment();
+        total.add(value);
+        max.accumulate(value);
+    }
+
+    // records the time since start, unless the section was not timed, see Metrics#start()
+    public void recordSince(final long start) {
+        if (start != 0) {
+            record(System.nanoTime() - start);
+        }
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (final LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    public double getMean() {
+        final long count = getCount();
+        return count == 0 ? 0 : (double) total.sum() / count;
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    // lowest value of the bucket holding the percentile (0 to 100)
+    public long getPercentile(final double percentile) {
+        final long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            count += counts[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(value(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    public void reset() {
+        for (final LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        total.reset();
+        max.reset();
+    }
+
+    // bucket k * 16 + (value >>> k), where k keeps the top 5 bits of the value
+    static int index(final long value) {
+        final int shift = Math.max(0, 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS - 1);
+        return Math.min(shift * SUB_BUCKETS + (int) (value >>> shift), BUCKETS - 1);
+    }
+
+    // lowest value of the bucket
+    static long value(final int index) {
+        final int shift = Math.max(0, index / SUB_BUCKETS - 1);
+        return (long) (index - shift * SUB_BUCKETS) << shift;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-16s %,12d %10.1f %10.1f %10.1f %10.1f %10.1f", name, getCount(), getMean() / 1e3,
+                getPercentile(50) / 1e3, getPercentile(99) / 1e3, getPercentile(99.9) / 1e3, getMax() / 1e3);
+    }
+}
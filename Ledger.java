@@ -0,0 +1,167 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The chips of every table and player in the process. A table keeps its own balances while a
+ * round is played (see {@link BlackJackEngine}), and settles the round here in one batch: what
+ * each seat won or lost, and the opposite for the table.
+ * <p>
+ * Accounts are spread over stripes, a table and its seats on the same one, and a batch updates
+ * its stripe's totals and accounts under the stripe's lock. Tables on different stripes never
+ * contend, so thousands of tables can settle at once. A {@link #snapshot()} reads the stripes one
+ * at a time while the tables play on: it holds every batch either whole or not at all, so the
+ * tables' and the players' totals always cancel out.
+ * <p>
+ * Balances are whole chips in a long; the rules make every payout whole (see RuleSet).
+ */
+public final class Ledger {
+    // the cashier's: the tables people play at, in the window and TableServer
+    public static final Ledger DEFAULT = new Ledger();
+
+    private final Stripe[] stripes;
+    private final AtomicLong ids = new AtomicLong();
+
+    public Ledger() {
+        this(Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    public Ledger(final int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("At least 1 stripe is needed!");
+        }
+        // a power of two, so an account's stripe is a mask of its id
+        this.stripes = new Stripe[Integer.highestOneBit(stripes * 2 - 1)];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+    // totals of the accounts of one stripe, padded so that stripes do not share a cache line
+    private static final class Stripe {
+        long tables;
+        long players;
+        long rounds;
+        long p1, p2, p3, p4, p5, p6, p7; // padding
+    }
+
+    public static final class Account {
+        private final long id;
+        private final String name;
+        private final boolean table;
+        private final Stripe stripe;
+        private long balance; // guarded by the stripe
+
+        private Account(final long id, final String name, final boolean table, final Stripe stripe) {
+            this.id = id;
+            this.name = name;
+            this.table = table;
+            this.stripe = stripe;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isTable() {
+            return table;
+        }
+
+        public long getBalance() {
+            synchronized (stripe) {
+                return balance;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return name + ": " + getBalance();
+        }
+    }
+
+    public Account openTable(final String name) {
+        final long id = ids.incrementAndGet();
+        return new Account(id, name, true, stripes[(int) (id & (stripes.length - 1))]);
+    }
+
+    // on the table's stripe, so that the table settles its rounds under one lock
+    public Account openPlayer(final Account table, final String name) {
+        if (!table.isTable()) {
+            throw new IllegalArgumentException(table.getName() + " is not a table!");
+        }
+        return new Account(ids.incrementAndGet(), name, false, table.stripe);
+    }
+
+    /**
+     * One round of a table, in one batch: players[i] gets amounts[i] from the table (negative pays it).
+     *
+     * @param count number of players in the round, the arrays can be longer
+     */
+    public void settle(final Account table, final Account[] players, final long[] amounts, final int count) {
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            if (players[i].stripe != table.stripe) {
+                throw new IllegalArgumentException(players[i].getName() + " does not play at " + table.getName() + "!");
+            }
+            total += amounts[i];
+        }
+        final Stripe stripe = table.stripe;
+        synchronized (stripe) {
+            for (int i = 0; i < count; i++) {
+                players[i].balance += amounts[i];
+            }
+            table.balance -= total;
+            stripe.players += total;
+            stripe.tables -= total;
+            stripe.rounds++;
+        }
+    }
+
+    // totals over every stripe, each batch is in it whole or not at all
+    public Snapshot snapshot() {
+        long tables = 0;
+        long players = 0;
+        long rounds = 0;
+        for (final Stripe stripe : stripes) {
+            synchronized (stripe) {
+                tables += stripe.tables;
+                players += stripe.players;
+                rounds += stripe.rounds;
+            }
+        }
+        return new Snapshot(tables, players, rounds);
+    }
+
+    public static final class Snapshot {
+        private final long tables;
+        private final long players;
+        private final long rounds;
+
+        private Snapshot(final long tables, final long players, final long rounds) {
+            this.tables = tables;
+            this.players = players;
+            this.rounds = rounds;
+        }
+
+        // what the tables won, the opposite of what the players won
+        public long getTables() {
+            return tables;
+        }
+
+        public long getPlayers() {
+            return players;
+        }
+
+        // settled batches
+        public long getRounds() {
+            return rounds;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Rounds: %,d, Tables: %,d, Players: %,d", rounds, tables, players);
+        }
+    }
+}
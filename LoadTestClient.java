@@ -0,0 +1,105 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.SocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Opens many {@link TableServer} sessions and plays hands on all of them at once
+ * (proceed, hit until 17, stay), then reports hands per second and action latency percentiles.
+ * Usage: LoadTestClient [address] [tables] [hands per table]
+ */
+public class LoadTestClient {
+
+    // plays the hands on one table, returns the latency of every action in nanoseconds
+    static long[] play(final SocketAddress address, final int hands) throws IOException {
+        long[] latencies = new long[hands * 4];
+        int count = 0;
+        try (final SocketChannel channel = TableServer.configure(SocketChannel.open(address));
+             final BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+             final BufferedWriter out = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8))) {
+            for (int hand = 0; hand < hands; hand++) {
+                String state = "DEAL 2";
+                while (true) {
+                    final long start = System.nanoTime();
+                    out.write(state);
+                    out.write('\n');
+                    out.flush();
+                    final String response = in.readLine();
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    }
+                    latencies[count++] = System.nanoTime() - start;
+
+                    if (response == null || response.startsWith("ERR")) {
+                        throw new IOException("Unexpected response to " + state + ": " + response);
+                    }
+                    // OK state outcome playerScore ...
+                    final String[] fields = response.split(" ", 5);
+                    if (fields[1].equals("FINISHED")) {
+                        state = "RESTART";
+                    } else if (fields[1].equals("OFFER")) {
+                        state = "PROCEED";
+                    } else if (fields[1].equals("PLAY")) {
+                        state = Integer.parseInt(fields[3]) < 17 ? "HIT" : "STAY";
+                    } else {
+                        break; // restarted, back to DEAL
+                    }
+                }
+            }
+            out.write("QUIT\n");
+            out.flush();
+        }
+        return Arrays.copyOf(latencies, count);
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final SocketAddress address = TableServer.parseAddress(args.length > 0 ? args[0] : "7777");
+        final int tables = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        final int hands = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+
+        final ExecutorService executor = TableServer.newTaskExecutor();
+        final List<Future<long[]>> results = new ArrayList<>(tables);
+        final long start = System.nanoTime();
+        for (int i = 0; i < tables; i++) {
+            results.add(executor.submit(() -> play(address, hands)));
+        }
+
+        final List<long[]> perTable = new ArrayList<>(tables);
+        int actions = 0;
+        for (final Future<long[]> result : results) {
+            perTable.add(result.get());
+            actions += perTable.get(perTable.size() - 1).length;
+        }
+        // every table is done, merging the latencies is not part of the run
+        final double seconds = (System.nanoTime() - start) / 1e9;
+        executor.shutdown();
+
+        final long[] latencies = new long[actions];
+        int length = 0;
+        for (final long[] table : perTable) {
+            System.arraycopy(table, 0, latencies, length, table.length);
+            length += table.length;
+        }
+
+        Arrays.sort(latencies);
+        System.out.printf("%d tables x %d hands in %.2f s: %,.0f hands/s, %,.0f actions/s%n",
+                tables, hands, seconds, tables * (double) hands / seconds, latencies.length / seconds);
+        System.out.printf("Action latency p50: %.1f us, p99: %.1f us, p99.9: %.1f us, max: %.1f us%n",
+                percentile(latencies, 0.50) / 1e3, percentile(latencies, 0.99) / 1e3,
+                percentile(latencies, 0.999) / 1e3, latencies[latencies.length - 1] / 1e3);
+    }
+
+    private static long percentile(final long[] sorted, final double percentile) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * percentile))];
+    }
+}
@@ -0,0 +1,286 @@
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters and latency histograms of the game, shared by every table in the process.
+ * Counters are {@link LongAdder}s and latencies {@link LatencyRecorder}s, so recording from many
+ * tables at once does not contend. Off with -Dblackjack.metrics=false, then the timed code does
+ * not even read the clock.
+ * <p>
+ * {@link #register()} publishes them in JMX, and with -Dblackjack.metricsDump=&lt;seconds&gt;
+ * prints a report to stderr at that interval.
+ */
+public final class Metrics implements MetricsMXBean {
+    public static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("blackjack.metrics"));
+    // reading the clock costs more than the rest of the metrics (tens of ns), so the engine times
+    // one action in -Dblackjack.metrics.sample=<n> (rounded up to a power of two), see BlackJackEngine
+    static final int SAMPLE_MASK = Integer.highestOneBit(Math.max(1, Integer.getInteger("blackjack.metrics.sample", 32)) * 2 - 1) - 1;
+
+    // engine actions, see BlackJackEngine
+    public static final LatencyRecorder DEAL = new LatencyRecorder("deal");
+    public static final LatencyRecorder INSURE = new LatencyRecorder("insure");
+    public static final LatencyRecorder SURRENDER = new LatencyRecorder("surrender");
+    public static final LatencyRecorder PROCEED = new LatencyRecorder("proceed");
+    public static final LatencyRecorder DOUBLE_DOWN = new LatencyRecorder("doubleDown");
+    public static final LatencyRecorder HIT = new LatencyRecorder("hit");
+    public static final LatencyRecorder STAY = new LatencyRecorder("stay");
+    public static final LatencyRecorder SPLIT = new LatencyRecorder("split");
+    public static final LatencyRecorder RESTART = new LatencyRecorder("restart");
+    public static final LatencyRecorder TABLE_TURN = new LatencyRecorder("tableTurn");
+    public static final LatencyRecorder DETERMINE_WINNER = new LatencyRecorder("determineWinner");
+    // Deck.shuffle
+    public static final LatencyRecorder SHUFFLE = new LatencyRecorder("shuffle");
+    // BlackJack.fitImageToLabel and TablePanel.paintComponent, on the event dispatch thread
+    public static final LatencyRecorder PAINT = new LatencyRecorder("fitImageToLabel");
+    public static final LatencyRecorder TABLE_PAINT = new LatencyRecorder("paintTable");
+
+    private static final LatencyRecorder[] LATENCIES = {DEAL, INSURE, SURRENDER, PROCEED, DOUBLE_DOWN, HIT, STAY,
+            SPLIT, RESTART, TABLE_TURN, DETERMINE_WINNER, SHUFFLE, PAINT, TABLE_PAINT};
+
+    static final LongAdder HANDS = new LongAdder(); // dealt, one per seat
+    static final LongAdder WINS = new LongAdder();
+    static final LongAdder LOSSES = new LongAdder();
+    static final LongAdder PUSHES = new LongAdder();
+    static final LongAdder BLACK_JACKS = new LongAdder();
+    static final LongAdder INSURED = new LongAdder(); // insurance bought
+    static final LongAdder SURRENDERED = new LongAdder();
+    static final LongAdder SHUFFLES = new LongAdder();
+    static final LongAdder REFILLS = new LongAdder(); // the shoe ran out and took the returned cards
+    static final LongAdder SHOE_SWAPS = new LongAdder(); // a pooled shoe replaced a shuffle
+    static final LongAdder SHOE_MISSES = new LongAdder(); // no pooled shoe was ready, shuffled in place
+
+    private static final Metrics INSTANCE = new Metrics();
+    private static boolean registered;
+
+    private volatile long since = System.nanoTime(); // start, or last reset
+
+    private Metrics() {
+    }
+
+    public static Metrics getInstance() {
+        return INSTANCE;
+    }
+
+    // start of a timed section, 0 if not timed, see LatencyRecorder#recordSince
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    // a hand is decided, once per split hand; surrenders count as losses too
+    static void count(final Outcome outcome) {
+        if (!ENABLED) {
+            return;
+        }
+        switch (outcome) {
+            case BLACK_JACK:
+                BLACK_JACKS.increment();
+                WINS.increment();
+                break;
+            case WIN:
+                WINS.increment();
+                break;
+            case PUSH:
+                PUSHES.increment();
+                break;
+            case INSURED:
+                // the table had 21, the insurance is counted when bought
+                LOSSES.increment();
+                break;
+            case SURRENDERED:
+                SURRENDERED.increment();
+                LOSSES.increment();
+                break;
+            case LOSE:
+                LOSSES.increment();
+                break;
+            default:
+                break;
+        }
+    }
+
+    static void increment(final LongAdder counter) {
+        if (ENABLED) {
+            counter.increment();
+        }
+    }
+
+    static void add(final LongAdder counter, final long value) {
+        if (ENABLED) {
+            counter.add(value);
+        }
+    }
+
+    // publishes the metrics in JMX once, and starts the dump if asked for
+    public static synchronized void register() {
+        if (registered || !ENABLED) {
+            return;
+        }
+        registered = true;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName("blackjack:type=Metrics"));
+        } catch (final JMException e) {
+            System.err.println("Metrics not registered in JMX: " + e.getMessage());
+        }
+        final long seconds = Long.getLong("blackjack.metricsDump", 0);
+        if (seconds > 0) {
+            startDump(seconds, System.err);
+        }
+    }
+
+    // prints the report at the interval, on a daemon thread
+    public static ScheduledExecutorService startDump(final long seconds, final PrintStream out) {
+        final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long[] last = {HANDS.sum(), System.nanoTime()};
+        executor.scheduleAtFixedRate(() -> {
+            final long hands = HANDS.sum();
+            final long now = System.nanoTime();
+            out.printf("%,.0f hands/s%n%s%n", (hands - last[0]) / ((now - last[1]) / 1e9), INSTANCE.getReport());
+            last[0] = hands;
+            last[1] = now;
+        }, seconds, seconds, TimeUnit.SECONDS);
+        return executor;
+    }
+
+    @Override
+    public long getHands() {
+        return HANDS.sum();
+    }
+
+    // since the start, or the last reset
+    @Override
+    public double getHandsPerSecond() {
+        return HANDS.sum() / ((System.nanoTime() - since) / 1e9);
+    }
+
+    @Override
+    public long getWins() {
+        return WINS.sum();
+    }
+
+    @Override
+    public long getLosses() {
+        return LOSSES.sum();
+    }
+
+    @Override
+    public long getPushes() {
+        return PUSHES.sum();
+    }
+
+    @Override
+    public long getBlackJacks() {
+        return BLACK_JACKS.sum();
+    }
+
+    @Override
+    public long getInsured() {
+        return INSURED.sum();
+    }
+
+    @Override
+    public long getSurrendered() {
+        return SURRENDERED.sum();
+    }
+
+    @Override
+    public long getShuffles() {
+        return SHUFFLES.sum();
+    }
+
+    @Override
+    public long getRefills() {
+        return REFILLS.sum();
+    }
+
+    @Override
+    public long getShoeSwaps() {
+        return SHOE_SWAPS.sum();
+    }
+
+    @Override
+    public long getShoeMisses() {
+        return SHOE_MISSES.sum();
+    }
+
+    @Override
+    public String getLedger() {
+        return Ledger.DEFAULT.snapshot().toString();
+    }
+
+    @Override
+    public String[] getLatencyNames() {
+        final String[] names = new String[LATENCIES.length];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = LATENCIES[i].getName();
+        }
+        return names;
+    }
+
+    @Override
+    public long getLatencyCount(final String name) {
+        return latency(name).getCount();
+    }
+
+    @Override
+    public double getLatencyMean(final String name) {
+        return latency(name).getMean() / 1e3;
+    }
+
+    @Override
+    public double getLatencyPercentile(final String name, final double percentile) {
+        return latency(name).getPercentile(percentile) / 1e3;
+    }
+
+    @Override
+    public double getLatencyMax(final String name) {
+        return latency(name).getMax() / 1e3;
+    }
+
+    private static LatencyRecorder latency(final String name) {
+        for (final LatencyRecorder latency : LATENCIES) {
+            if (latency.getName().equals(name)) {
+                return latency;
+            }
+        }
+        throw new IllegalArgumentException("Unknown latency: " + name);
+    }
+
+    @Override
+    public String getReport() {
+        final StringBuilder report = new StringBuilder();
+        report.append(String.format("Hands: %,d, Win: %,d, Loss: %,d, Push: %,d, Black Jack: %,d, Insurance bought: %,d, Surrendered: %,d%n",
+                getHands(), getWins(), getLosses(), getPushes(), getBlackJacks(), getInsured(), getSurrendered()));
+        report.append(String.format("Shuffles: %,d, Refills: %,d, Shoes swapped: %,d, missed: %,d%n",
+                getShuffles(), getRefills(), getShoeSwaps(), getShoeMisses()));
+        report.append("Ledger: ").append(getLedger()).append(System.lineSeparator());
+        report.append(String.format("%-16s %12s %10s %10s %10s %10s %10s", "Latency (us)", "count", "mean", "p50", "p99", "p99.9", "max"));
+        for (final LatencyRecorder latency : LATENCIES) {
+            if (latency.getCount() > 0) {
+                report.append(System.lineSeparator()).append(latency);
+            }
+        }
+        return report.toString();
+    }
+
+    @Override
+    public void reset() {
+        for (final LongAdder counter : new LongAdder[]{HANDS, WINS, LOSSES, PUSHES, BLACK_JACKS, INSURED, SURRENDERED,
+                SHUFFLES, REFILLS, SHOE_SWAPS, SHOE_MISSES}) {
+            counter.reset();
+        }
+        for (final LatencyRecorder latency : LATENCIES) {
+            latency.reset();
+        }
+        since = System.nanoTime();
+    }
+}
@@ -0,0 +1,46 @@
+/**
+ * What {@link Metrics} shows in JMX (jconsole, VisualVM, ...) under "blackjack:type=Metrics".
+ * Latencies are in microseconds.
+ */
+public interface MetricsMXBean {
+    long getHands();
+
+    double getHandsPerSecond();
+
+    long getWins();
+
+    long getLosses();
+
+    long getPushes();
+
+    long getBlackJacks();
+
+    long getInsured();
+
+    long getSurrendered();
+
+    long getShuffles();
+
+    long getRefills();
+
+    long getShoeSwaps();
+
+    long getShoeMisses();
+
+    // cashier view of Ledger.DEFAULT, taken while the tables play
+    String getLedger();
+
+    String[] getLatencyNames();
+
+    long getLatencyCount(String name);
+
+    double getLatencyMean(String name);
+
+    double getLatencyPercentile(String name, double percentile);
+
+    double getLatencyMax(String name);
+
+    String getReport();
+
+    void reset();
+}
@@ -0,0 +1,13 @@
+public enum Outcome {
+    IN_PROGRESS, // hand is not decided yet
+    BLACK_JACK, // player has 21 with the first 2 cards
+    WIN,
+    LOSE,
+    PUSH, // no winner
+    INSURED, // table has 21, insurance saved half of the (doubled) bid
+    SURRENDERED;
+
+    public boolean isFinal() {
+        return this != IN_PROGRESS;
+    }
+}
@@ -0,0 +1,61 @@
+import java.util.ServiceLoader;
+
+/**
+ * Plays for a player: given a batch of decisions from any number of tables (see
+ * {@link DecisionBatch}), writes an action for each, in one call. {@link StrategyDriver} plays
+ * tables for a strategy, {@link Simulator} simulates one.
+ * <p>
+ * Built in, by name: "basic" ({@link BasicStrategy}), "counting" ({@link CountingStrategy}),
+ * "chart:file" ({@link ChartStrategy}) and "script:actions" ({@link ScriptedStrategy}). Others
+ * are found with {@link ServiceLoader}, as {@link Factory} implementations listed in
+ * META-INF/services/PlayerStrategy$Factory.
+ * <p>
+ * A strategy is used by one thread at a time.
+ */
+public interface PlayerStrategy {
+
+    void decide(DecisionBatch batch);
+
+    // the batch then carries the Hi-Lo true count of every table's shoe
+    default boolean countsCards() {
+        return false;
+    }
+
+    // makes a strategy by name, for ServiceLoader
+    interface Factory {
+        String getName();
+
+        // argument is what follows the name and ':', null if nothing does
+        PlayerStrategy create(RuleSet rules, String argument);
+    }
+
+    // "name" or "name:argument", a new strategy for the rules
+    static PlayerStrategy of(final String spec, final RuleSet rules) {
+        final int colon = spec.indexOf(':');
+        final String name = colon < 0 ? spec : spec.substring(0, colon);
+        final String argument = colon < 0 ? null : spec.substring(colon + 1);
+        switch (name) {
+            case "basic":
+                return new BasicStrategy(rules);
+            case "counting":
+                return new CountingStrategy(rules);
+            case "chart":
+                if (argument == null) {
+                    throw new IllegalArgumentException("A chart strategy needs a file: chart:file!");
+                }
+                return ChartStrategy.load(argument);
+            case "script":
+                if (argument == null) {
+                    throw new IllegalArgumentException("A scripted strategy needs actions: script:HIT,STAY!");
+                }
+                return ScriptedStrategy.parse(argument, new BasicStrategy(rules));
+            default:
+                for (final Factory factory : ServiceLoader.load(Factory.class)) {
+                    if (factory.getName().equals(name)) {
+                        return factory.create(rules, argument);
+                    }
+                }
+                throw new IllegalArgumentException("Unknown strategy: " + name + "!");
+        }
+    }
+}
@@ -0,0 +1,60 @@
+import java.security.SecureRandom;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+/**
+ * Random generators a {@link Deck} can shuffle with.
+ * Seeded generators can replay a run exactly; give every thread its own stream with {@link #split}.
+ */
+public enum RandomSource {
+    SPLITTABLE(null),
+    L64X128("L64X128MixRandom"),
+    XOSHIRO("Xoshiro256PlusPlus"),
+    SECURE(null), // for real money tables, cannot be seeded
+    REPLAYABLE(null); // state can be saved, see ReplayableRandom
+
+    private final String algorithm;
+
+    RandomSource(final String algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    public RandomGenerator create() {
+        return create(System.nanoTime() ^ Thread.currentThread().getId() * 0x9E3779B97F4A7C15L);
+    }
+
+    public RandomGenerator create(final long seed) {
+        switch (this) {
+            case SPLITTABLE:
+                return new SplittableRandom(seed);
+            case SECURE:
+                return new SecureRandom();
+            case REPLAYABLE:
+                return new ReplayableRandom(seed);
+            default:
+                return RandomGeneratorFactory.of(algorithm).create(seed);
+        }
+    }
+
+    // same seed, same shuffles
+    public boolean isReproducible() {
+        return this != SECURE;
+    }
+
+    // an independent stream for another thread, derived from the given one
+    public static RandomGenerator split(final RandomGenerator random) {
+        if (random instanceof ReplayableRandom) {
+            return ((ReplayableRandom) random).split();
+        } else if (random instanceof RandomGenerator.SplittableGenerator) {
+            return ((RandomGenerator.SplittableGenerator) random).split();
+        } else if (random instanceof RandomGenerator.JumpableGenerator) {
+            return ((RandomGenerator.JumpableGenerator) random).copyAndJump();
+        } else if (random instanceof SecureRandom) {
+            return new SecureRandom();
+        } else if (random instanceof SplittableRandom) {
+            return ((SplittableRandom) random).split();
+        }
+        return new SplittableRandom(random.nextLong());
+    }
+}
@@ -0,0 +1,37 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * SplitMix64, the generator behind {@link java.util.SplittableRandom}, with its whole state in
+ * one long that can be read and set. A snapshot saves it, so the shuffles after a resume are
+ * the ones the table would have made without stopping (see {@link GameSnapshot}).
+ */
+public final class ReplayableRandom implements RandomGenerator {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long state;
+
+    public ReplayableRandom(final long seed) {
+        state = seed;
+    }
+
+    public long getState() {
+        return state;
+    }
+
+    public void setState(final long state) {
+        this.state = state;
+    }
+
+    // an independent stream for another thread
+    public ReplayableRandom split() {
+        return new ReplayableRandom(nextLong());
+    }
+
+    @Override
+    public long nextLong() {
+        long z = state += GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
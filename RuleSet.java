@@ -0,0 +1,269 @@
+import java.util.Objects;
+
+/**
+ * The house rules a {@link BlackJackEngine} plays by. Immutable, so that tables computed
+ * for a rule set (see {@link DealerOutcomeTable#forRules} and {@link Advisor#forRules})
+ * can be cached and shared by every table and simulation using the same rules.
+ * {@link #DEFAULT} are the rules described in {@link BlackJack}.
+ */
+public final class RuleSet {
+
+    public enum Surrender {
+        NONE,
+        EARLY, // before the table checks for 21
+        LATE // only when the table does not have 21
+    }
+
+    public enum Insurance {
+        NONE,
+        DOUBLE_BID, // the bid doubles, if the table has 21 only the original bid is lost
+        SIDE_BET // half the bid on the table having 21, paid at insurance payout
+    }
+
+    public static final RuleSet DEFAULT = builder().build();
+
+    private final int decks;
+    private final double penetration;
+    private final boolean hitSoft17;
+    private final int blackJackPayoutNumerator;
+    private final int blackJackPayoutDenominator;
+    private final Surrender surrender;
+    private final Insurance insurance;
+    private final int insurancePayout;
+    private final boolean doubleAfterSplit;
+    private final int maxHands;
+    private final boolean resplitAces;
+    private final boolean hitSplitAces;
+
+    private RuleSet(final Builder builder) {
+        decks = builder.decks;
+        penetration = builder.penetration;
+        hitSoft17 = builder.hitSoft17;
+        blackJackPayoutNumerator = builder.blackJackPayoutNumerator;
+        blackJackPayoutDenominator = builder.blackJackPayoutDenominator;
+        surrender = builder.surrender;
+        insurance = builder.insurance;
+        insurancePayout = builder.insurancePayout;
+        doubleAfterSplit = builder.doubleAfterSplit;
+        maxHands = builder.maxHands;
+        resplitAces = builder.resplitAces;
+        hitSplitAces = builder.hitSplitAces;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    // a builder starting from these rules
+    public Builder toBuilder() {
+        final Builder builder = new Builder();
+        builder.decks = decks;
+        builder.penetration = penetration;
+        builder.hitSoft17 = hitSoft17;
+        builder.blackJackPayoutNumerator = blackJackPayoutNumerator;
+        builder.blackJackPayoutDenominator = blackJackPayoutDenominator;
+        builder.surrender = surrender;
+        builder.insurance = insurance;
+        builder.insurancePayout = insurancePayout;
+        builder.doubleAfterSplit = doubleAfterSplit;
+        builder.maxHands = maxHands;
+        builder.resplitAces = resplitAces;
+        builder.hitSplitAces = hitSplitAces;
+        return builder;
+    }
+
+    public int getDecks() {
+        return decks;
+    }
+
+    // fraction of the shoe dealt before it is reshuffled
+    public double getPenetration() {
+        return penetration;
+    }
+
+    // H17, otherwise S17
+    public boolean hitsSoft17() {
+        return hitSoft17;
+    }
+
+    public int getBlackJackPayoutNumerator() {
+        return blackJackPayoutNumerator;
+    }
+
+    public int getBlackJackPayoutDenominator() {
+        return blackJackPayoutDenominator;
+    }
+
+    // what a black jack wins on the given bid
+    public int blackJackPayout(final int bid) {
+        return bid * blackJackPayoutNumerator / blackJackPayoutDenominator;
+    }
+
+    public Surrender getSurrender() {
+        return surrender;
+    }
+
+    public Insurance getInsurance() {
+        return insurance;
+    }
+
+    // side bet payout, x to 1
+    public int getInsurancePayout() {
+        return insurancePayout;
+    }
+
+    public boolean isDoubleAfterSplit() {
+        return doubleAfterSplit;
+    }
+
+    // 1 means no split
+    public int getMaxHands() {
+        return maxHands;
+    }
+
+    public boolean isResplitAces() {
+        return resplitAces;
+    }
+
+    public boolean isHitSplitAces() {
+        return hitSplitAces;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RuleSet)) {
+            return false;
+        }
+        final RuleSet other = (RuleSet) o;
+        return decks == other.decks
+                && Double.compare(penetration, other.penetration) == 0
+                && hitSoft17 == other.hitSoft17
+                && blackJackPayoutNumerator == other.blackJackPayoutNumerator
+                && blackJackPayoutDenominator == other.blackJackPayoutDenominator
+                && surrender == other.surrender
+                && insurance == other.insurance
+                && insurancePayout == other.insurancePayout
+                && doubleAfterSplit == other.doubleAfterSplit
+                && maxHands == other.maxHands
+                && resplitAces == other.resplitAces
+                && hitSplitAces == other.hitSplitAces;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(decks, penetration, hitSoft17, blackJackPayoutNumerator, blackJackPayoutDenominator,
+                surrender, insurance, insurancePayout, doubleAfterSplit, maxHands, resplitAces, hitSplitAces);
+    }
+
+    // e.g. "6D 75% S17 BJ 3:2 EARLY_SURRENDER DOUBLE_BID_INSURANCE DAS SPLIT_TO_4"
+    @Override
+    public String toString() {
+        return decks + "D " + Math.round(penetration * 100) + "% "
+                + (hitSoft17 ? "H17" : "S17")
+                + " BJ " + blackJackPayoutNumerator + ":" + blackJackPayoutDenominator
+                + " " + surrender + "_SURRENDER"
+                + " " + insurance + "_INSURANCE" + (insurance == Insurance.SIDE_BET ? " " + insurancePayout + ":1" : "")
+                + (doubleAfterSplit ? " DAS" : " NDAS")
+                + " SPLIT_TO_" + maxHands
+                + (resplitAces ? " RSA" : "")
+                + (hitSplitAces ? " HSA" : "");
+    }
+
+    public static class Builder {
+        private int decks = 1;
+        private double penetration = 1.0;
+        private boolean hitSoft17;
+        private int blackJackPayoutNumerator = 2;
+        private int blackJackPayoutDenominator = 1;
+        private Surrender surrender = Surrender.EARLY;
+        private Insurance insurance = Insurance.DOUBLE_BID;
+        private int insurancePayout = 2;
+        private boolean doubleAfterSplit = true;
+        private int maxHands = BlackJackEngine.MAX_HANDS;
+        private boolean resplitAces;
+        private boolean hitSplitAces;
+
+        private Builder() {
+        }
+
+        public Builder decks(final int decks) {
+            this.decks = decks;
+            return this;
+        }
+
+        public Builder penetration(final double penetration) {
+            this.penetration = penetration;
+            return this;
+        }
+
+        public Builder hitSoft17(final boolean hitSoft17) {
+            this.hitSoft17 = hitSoft17;
+            return this;
+        }
+
+        // e.g. 3, 2 for 3:2
+        public Builder blackJackPayout(final int numerator, final int denominator) {
+            this.blackJackPayoutNumerator = numerator;
+            this.blackJackPayoutDenominator = denominator;
+            return this;
+        }
+
+        public Builder surrender(final Surrender surrender) {
+            this.surrender = surrender;
+            return this;
+        }
+
+        public Builder insurance(final Insurance insurance) {
+            this.insurance = insurance;
+            return this;
+        }
+
+        public Builder insurancePayout(final int insurancePayout) {
+            this.insurancePayout = insurancePayout;
+            return this;
+        }
+
+        public Builder doubleAfterSplit(final boolean doubleAfterSplit) {
+            this.doubleAfterSplit = doubleAfterSplit;
+            return this;
+        }
+
+        public Builder maxHands(final int maxHands) {
+            this.maxHands = maxHands;
+            return this;
+        }
+
+        public Builder resplitAces(final boolean resplitAces) {
+            this.resplitAces = resplitAces;
+            return this;
+        }
+
+        public Builder hitSplitAces(final boolean hitSplitAces) {
+            this.hitSplitAces = hitSplitAces;
+            return this;
+        }
+
+        public RuleSet build() {
+            // shoe compositions are packed in a long, see DealerOutcomes
+            if (decks < 1 || decks > 15) {
+                throw new IllegalArgumentException("A shoe has 1 to 15 decks!");
+            }
+            if (penetration <= 0 || penetration > 1) {
+                throw new IllegalArgumentException("Penetration must be in (0, 1]!");
+            }
+            if (blackJackPayoutNumerator <= 0 || blackJackPayoutDenominator <= 0) {
+                throw new IllegalArgumentException("Black jack payout must be positive!");
+            }
+            if (insurancePayout <= 0) {
+                throw new IllegalArgumentException("Insurance payout must be positive!");
+            }
+            if (maxHands < 1 || maxHands > BlackJackEngine.MAX_HANDS) {
+                throw new IllegalArgumentException("A seat can have 1 to " + BlackJackEngine.MAX_HANDS + " hands!");
+            }
+            return new RuleSet(this);
+        }
+    }
+}
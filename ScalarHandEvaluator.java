@@ -0,0 +1,50 @@
+/**
+ * Evaluates one hand after the other, a card at a time with {@link HandValue}, like the engine
+ * does. The fallback where the Vector API is not available, and the reference for the vector
+ * evaluator.
+ */
+public class ScalarHandEvaluator implements HandEvaluator {
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+
+    @Override
+    public void scorePlayers(final HandBatch batch) {
+        scorePlayers(batch, 0, batch.size());
+    }
+
+    @Override
+    public void playTables(final HandBatch batch, final boolean hitSoft17) {
+        playTables(batch, hitSoft17, 0, batch.size());
+    }
+
+    // hands from to to - 1, also the tail the vector evaluator leaves
+    static void scorePlayers(final HandBatch batch, final int from, final int to) {
+        final int[][] cards = batch.playerCards;
+        for (int i = from; i < to; i++) {
+            int hand = HandValue.EMPTY;
+            for (int position = 0; position < cards.length && cards[position][i] != 0; position++) {
+                hand = HandValue.add(hand, cards[position][i]);
+            }
+            batch.hardTotals[i] = HandValue.hardTotal(hand);
+            batch.scores[i] = HandValue.score(hand);
+            batch.flags[i] = HandBatch.flags(hand);
+        }
+    }
+
+    static void playTables(final HandBatch batch, final boolean hitSoft17, final int from, final int to) {
+        final int[][] cards = batch.tableCards;
+        for (int i = from; i < to; i++) {
+            int hand = HandValue.add(HandValue.add(HandValue.EMPTY, cards[0][i]), cards[1][i]);
+            int count = 2;
+            while (count < cards.length && cards[count][i] != 0 && BlackJackEngine.mustDraw(hand, hitSoft17)) {
+                hand = HandValue.add(hand, cards[count++][i]);
+            }
+            batch.tableScores[i] = HandValue.score(hand);
+            batch.tableFlags[i] = HandBatch.flags(hand);
+            batch.tableCardCounts[i] = count;
+        }
+    }
+}
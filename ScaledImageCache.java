@@ -0,0 +1,88 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Keeps icons already scaled to a label's size, so redrawing the table does not
+ * scale the same image again. Must be cleared when the labels are resized.
+ * Thread safe, so that images can be scaled ahead of drawing them.
+ */
+public class ScaledImageCache {
+    private final Map<Key, ImageIcon> icons;
+
+    public ScaledImageCache(final int maxIcons) {
+        // access ordered, so that the least recently drawn icon is evicted first
+        icons = new LinkedHashMap<>(maxIcons, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, ImageIcon> eldest) {
+                return size() > maxIcons;
+            }
+        };
+    }
+
+    public synchronized ImageIcon get(final ImageIcon icon, final int width, final int height) {
+        // not laid out yet, nothing to scale to
+        if (width <= 0 || height <= 0) {
+            return icon;
+        }
+
+        final Key key = new Key(icon, width, height);
+        ImageIcon scaledIcon = icons.get(key);
+        if (scaledIcon == null) {
+            scaledIcon = new ImageIcon(scale(icon.getImage(), width, height));
+            icons.put(key, scaledIcon);
+        }
+        return scaledIcon;
+    }
+
+    public synchronized void clear() {
+        icons.clear();
+    }
+
+    public synchronized int size() {
+        return icons.size();
+    }
+
+    // one bilinear pass into a compatible image, much cheaper than getScaledInstance(SCALE_DEFAULT)
+    static BufferedImage scale(final Image image, final int width, final int height) {
+        final BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return scaled;
+    }
+
+    // source icons are compared by identity, ImageIcon does not override equals
+    private static final class Key {
+        private final ImageIcon icon;
+        private final int width;
+        private final int height;
+
+        Key(final ImageIcon icon, final int width, final int height) {
+            this.icon = icon;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return icon == other.icon && width == other.width && height == other.height;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(icon), width, height);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Plays a fixed list of actions on every hand, for house bots and to reproduce a hand: each deal
+ * starts the list again at its table, and each decision takes the next action of the list if it
+ * is allowed. Decisions the list has no allowed action for (the deal, an offer for a list of
+ * plays, or after the list ran out) are left to the fallback strategy.
+ */
+public class ScriptedStrategy implements PlayerStrategy {
+    private final byte[] script; // Action ordinals
+    private final PlayerStrategy fallback;
+    private int[] positions = new int[16]; // next action per table
+
+    public ScriptedStrategy(final List<Action> script, final PlayerStrategy fallback) {
+        this.script = new byte[script.size()];
+        for (int i = 0; i < script.size(); i++) {
+            if (script.get(i) == Action.DEAL || script.get(i) == Action.RESTART) {
+                throw new IllegalArgumentException("A script plays hands, not " + script.get(i) + "!");
+            }
+            this.script[i] = (byte) script.get(i).ordinal();
+        }
+        this.fallback = fallback;
+    }
+
+    // actions separated by ',' e.g. "PROCEED,HIT,STAY"
+    static ScriptedStrategy parse(final String actions, final PlayerStrategy fallback) {
+        final List<Action> script = new ArrayList<>();
+        for (final String action : actions.split(",")) {
+            script.add(TableServer.parseAction(action.trim().toUpperCase()));
+        }
+        return new ScriptedStrategy(script, fallback);
+    }
+
+    @Override
+    public boolean countsCards() {
+        return fallback.countsCards();
+    }
+
+    @Override
+    public void decide(final DecisionBatch batch) {
+        fallback.decide(batch);
+        for (int i = 0; i < batch.size(); i++) {
+            final int table = batch.tables[i];
+            if (table >= positions.length) {
+                positions = Arrays.copyOf(positions, Math.max(table + 1, positions.length * 2));
+            }
+            if (batch.states[i] == DecisionBatch.DEAL) {
+                positions[table] = 0;
+                continue;
+            }
+            final int position = positions[table];
+            if (position < script.length && (batch.allowed[i] & 1 << script[position]) != 0) {
+                batch.actions[i] = script[position];
+                positions[table]++;
+            }
+        }
+    }
+}
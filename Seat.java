@@ -0,0 +1,46 @@
+// a player's place at the table, reused from round to round
+class Seat {
+    // every hand a split can make, so that splitting allocates nothing
+    final Hand[] hands = new Hand[BlackJackEngine.MAX_HANDS];
+    final int index; // at the table
+    int handCount = 1;
+    int current; // hand being played
+
+    BlackJackEngine.State state = BlackJackEngine.State.DEAL;
+
+    long earning; // total earning for player
+    boolean insured; // did player purchase insurance? covers every hand
+
+    Seat(final int index) {
+        this.index = index;
+        for (int i = 0; i < hands.length; i++) {
+            hands[i] = new Hand();
+        }
+    }
+
+    Hand hand() {
+        return hands[current];
+    }
+
+    // puts a free hand right after the current one, so split hands are played in order
+    Hand insertHand() {
+        final Hand free = hands[handCount];
+        for (int i = handCount; i > current + 1; i--) {
+            hands[i] = hands[i - 1];
+        }
+        hands[current + 1] = free;
+        handCount++;
+        return free;
+    }
+
+    // cards go back to the deck, earning stays
+    void clear(final Deck returnCardDeck) {
+        for (int i = 0; i < handCount; i++) {
+            hands[i].clear(returnCardDeck);
+        }
+        handCount = 1;
+        current = 0;
+        state = BlackJackEngine.State.DEAL;
+        insured = false;
+    }
+}
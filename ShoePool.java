@@ -0,0 +1,168 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.random.RandomGenerator;
+
+/**
+ * Shuffled shoes made ahead of time, for tables that should not stop a hand to shuffle.
+ * A background thread fills a bounded ring with shuffled shoes (card indices, see Card.getIndex()),
+ * a {@link Deck} takes one at its cut card in place of shuffling its returned cards (see Deck#refill),
+ * and hands its old array back to be shuffled again. Both rings are lock free, any number of
+ * tables can take and return shoes at once.
+ * <p>
+ * A pooled table does not shuffle with its own generator, so it cannot be replayed from its seed
+ * (see HandJournal); the pool is for tables that are not journaled, like TableServer's.
+ */
+public final class ShoePool implements AutoCloseable {
+    private static final long PARK_NANOS = 10_000_000L; // producer checks for close this often when the pool is full
+
+    private final int decks;
+    private final RandomGenerator random; // only used by the producer
+    private final Ring ready;
+    private final Ring recycled;
+    private final Thread producer;
+
+    private volatile boolean waiting; // producer parks, the pool is full
+    private volatile boolean closed;
+
+    // shoes of the given number of decks, shuffled with a stream split from random
+    public ShoePool(final int decks, final int shoes, final RandomGenerator random) {
+        if (decks < 1) {
+            throw new IllegalArgumentException("At least 1 deck is needed!");
+        }
+        if (shoes < 1) {
+            throw new IllegalArgumentException("At least 1 shoe is needed!");
+        }
+        this.decks = decks;
+        this.random = RandomSource.split(random);
+        ready = new Ring(shoes);
+        recycled = new Ring(shoes);
+        producer = new Thread(this::produce, "shoe-pool-" + decks + "d");
+        producer.setDaemon(true);
+        producer.start();
+    }
+
+    public int getDecks() {
+        return decks;
+    }
+
+    // a shuffled shoe, or null if none is ready
+    public byte[] poll() {
+        final byte[] shoe = ready.poll();
+        // the producer refills in batches, once half the pool is taken
+        if (waiting && ready.size() <= ready.mask / 2) {
+            LockSupport.unpark(producer);
+        }
+        return shoe;
+    }
+
+    // shoes ready to be taken
+    public int size() {
+        return ready.size();
+    }
+
+    // a shoe that is done with, to be shuffled again; dropped if the pool has enough of them
+    public void recycle(final byte[] shoe) {
+        if (shoe.length == decks * Deck.CARDS_PER_DECK) {
+            recycled.offer(shoe);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(producer);
+    }
+
+    private void produce() {
+        byte[] shoe = null;
+        while (!closed) {
+            if (shoe == null) {
+                shoe = recycled.poll();
+                if (shoe == null) {
+                    shoe = new byte[decks * Deck.CARDS_PER_DECK];
+                }
+                // whatever the old shoe held, the new one starts from full decks
+                Deck.fill(shoe);
+                Deck.shuffle(shoe, 0, shoe.length, random);
+            }
+            if (ready.offer(shoe)) {
+                shoe = null;
+                continue;
+            }
+            // a table polling after this sees the flag and wakes us up
+            waiting = true;
+            if (ready.offer(shoe)) {
+                shoe = null;
+            } else {
+                LockSupport.parkNanos(this, PARK_NANOS);
+            }
+            waiting = false;
+        }
+    }
+
+    // bounded multi-producer multi-consumer queue (Dmitry Vyukov's), a sequence per slot says
+    // whether it can be written (sequence == position) or read (sequence == position + 1)
+    private static final class Ring {
+        private final byte[][] slots; // published by the sequences
+        private final AtomicLongArray sequences;
+        private final int mask;
+        private final AtomicLong head = new AtomicLong(); // next position to poll
+        private final AtomicLong tail = new AtomicLong(); // next position to offer
+
+        Ring(final int capacity) {
+            final int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+            slots = new byte[size][];
+            sequences = new AtomicLongArray(size);
+            for (int i = 0; i < size; i++) {
+                sequences.set(i, i);
+            }
+            mask = size - 1;
+        }
+
+        int size() {
+            return (int) Math.max(0, tail.get() - head.get());
+        }
+
+        boolean offer(final byte[] shoe) {
+            long position = tail.get();
+            while (true) {
+                final int slot = (int) (position & mask);
+                final long difference = sequences.get(slot) - position;
+                if (difference == 0) {
+                    if (tail.compareAndSet(position, position + 1)) {
+                        slots[slot] = shoe;
+                        sequences.set(slot, position + 1);
+                        return true;
+                    }
+                    position = tail.get();
+                } else if (difference < 0) {
+                    return false; // full
+                } else {
+                    position = tail.get();
+                }
+            }
+        }
+
+        byte[] poll() {
+            long position = head.get();
+            while (true) {
+                final int slot = (int) (position & mask);
+                final long difference = sequences.get(slot) - (position + 1);
+                if (difference == 0) {
+                    if (head.compareAndSet(position, position + 1)) {
+                        final byte[] shoe = slots[slot];
+                        slots[slot] = null;
+                        sequences.set(slot, position + mask + 1);
+                        return shoe;
+                    }
+                    position = head.get();
+                } else if (difference < 0) {
+                    return null; // empty
+                } else {
+                    position = head.get();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/**
+ * Results of simulated hands. Each worker keeps its own, merged at the end.
+ * Amounts are in units of the bid placed at the deal: a win is +1, a black jack +2 (by default), a
+ * surrender -0.5. With bids that change from hand to hand (see CountingStrategy) the units are the
+ * average bid, the player's total earning over the total bid.
+ * <p>
+ * A hand dealt is recorded once with its earning, and each hand it was split into with its outcome:
+ * the win, loss and push rates are per hand decided.
+ */
+public class SimulationStats {
+    // an even bid that pays a whole 3:2 and 6:5 black jack, surrender and insurance side bet
+    static final int BID = 10;
+
+    long hands; // dealt
+    long bids; // at the deal, in chips
+    long decided; // hands with an outcome, split hands each
+    long wins;
+    long losses;
+    long pushes;
+    long blackJacks;
+    long insured;
+    long surrendered;
+
+    long sum; // total player earning, in chips
+    long sumOfSquares;
+
+    // a hand dealt: the bid placed and what the player earned with it, split hands included
+    public void record(final int bid, final int earning) {
+        hands++;
+        bids += bid;
+        sum += earning;
+        sumOfSquares += (long) earning * earning;
+    }
+
+    // a hand decided, one of the hands of a split too
+    public void record(final Outcome outcome) {
+        decided++;
+        switch (outcome) {
+            case BLACK_JACK:
+                blackJacks++;
+                wins++;
+                break;
+            case WIN:
+                wins++;
+                break;
+            case PUSH:
+                pushes++;
+                break;
+            case INSURED:
+                insured++;
+                losses++;
+                break;
+            case SURRENDERED:
+                surrendered++;
+                losses++;
+                break;
+            default:
+                losses++;
+        }
+    }
+
+    public void merge(final SimulationStats other) {
+        hands += other.hands;
+        bids += other.bids;
+        decided += other.decided;
+        wins += other.wins;
+        losses += other.losses;
+        pushes += other.pushes;
+        blackJacks += other.blackJacks;
+        insured += other.insured;
+        surrendered += other.surrendered;
+        sum += other.sum;
+        sumOfSquares += other.sumOfSquares;
+    }
+
+    public long getHands() {
+        return hands;
+    }
+
+    public long getDecidedHands() {
+        return decided;
+    }
+
+    // expected player earning per hand, in bids (negative is the house edge)
+    public double getExpectedValue() {
+        return bids == 0 ? 0 : (double) sum / bids;
+    }
+
+    // standard deviation of the player earning per hand, in (average) bids
+    public double getStandardDeviation() {
+        if (hands < 2) {
+            return 0;
+        }
+        final double mean = (double) sum / hands;
+        final double variance = ((double) sumOfSquares - hands * mean * mean) / (hands - 1);
+        return Math.sqrt(Math.max(variance, 0)) / ((double) bids / hands);
+    }
+
+    // half width of the 95% confidence interval of the expected value
+    public double getConfidenceInterval() {
+        return hands == 0 ? 0 : 1.96 * getStandardDeviation() / Math.sqrt(hands);
+    }
+
+    public double getWinRate() {
+        return rate(wins);
+    }
+
+    public double getLossRate() {
+        return rate(losses);
+    }
+
+    public double getPushRate() {
+        return rate(pushes);
+    }
+
+    private double rate(final long count) {
+        return decided == 0 ? 0 : (double) count / decided;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Hands: %,d, decided: %,d, average bid: %.2f%n"
+                        + "EV: %+.5f +/- %.5f (95%%) bids/hand, SD: %.4f%n"
+                        + "Win: %.4f, Loss: %.4f, Push: %.4f%n"
+                        + "Black Jack: %.4f, Insured: %.4f, Surrendered: %.4f",
+                hands, decided, hands == 0 ? 0 : (double) bids / hands,
+                getExpectedValue(), getConfidenceInterval(), getStandardDeviation(),
+                getWinRate(), getLossRate(), getPushRate(),
+                rate(blackJacks), rate(insured), rate(surrendered));
+    }
+}
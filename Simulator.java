@@ -0,0 +1,237 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.random.RandomGenerator;
+
+/**
+ * Monte Carlo simulation of a {@link RuleSet} on a fork/join pool, the player plays a
+ * {@link PlayerStrategy}, basic strategy unless another is given. Every leaf task plays its hands
+ * on its own tables (see {@link StrategyDriver}) with its own random stream, split from the seed
+ * before forking, so a seed gives the same result for any number of threads.
+ * {@link #sweep} runs many rule sets on one pool.
+ */
+public class Simulator {
+    // hands played on one shoe by one leaf task
+    static final long LEAF_HANDS = 100_000;
+    // hands simulated for a base edge, see baseEdge
+    static final long BASE_EDGE_HANDS = 200_000;
+
+    private static final Map<RuleSet, Double> BASE_EDGES = new ConcurrentHashMap<>();
+
+    private final RuleSet rules;
+    private final String strategy; // see PlayerStrategy#of, made once per leaf
+    private final int tables; // played in step by a leaf, one batch of decisions for all of them
+    private boolean metered = true; // see setMetered
+
+    public Simulator(final RuleSet rules) {
+        this(rules, "basic", 1);
+    }
+
+    public Simulator(final RuleSet rules, final String strategy, final int tables) {
+        if (tables < 1) {
+            throw new IllegalArgumentException("At least 1 table is needed!");
+        }
+        this.rules = rules;
+        this.strategy = strategy;
+        this.tables = tables;
+        // a bad name fails here, not in a leaf
+        PlayerStrategy.of(strategy, rules);
+    }
+
+    public Simulator(final int decks, final double penetration) {
+        this(RuleSet.DEFAULT.toBuilder().decks(decks).penetration(penetration).build());
+    }
+
+    public RuleSet getRules() {
+        return rules;
+    }
+
+    // false keeps the simulated hands out of Metrics (see BlackJackEngine#setMetered), for a process serving players
+    public void setMetered(final boolean metered) {
+        this.metered = metered;
+    }
+
+    /**
+     * The expected value of basic strategy off the top of a shoe, per bid. Simulated once per rule
+     * set, without metrics, and kept in the temp directory like {@link DealerOutcomeTable}, so that
+     * later starts read it instead.
+     */
+    public static double baseEdge(final RuleSet rules) {
+        return BASE_EDGES.computeIfAbsent(rules, key -> {
+            final Path file = Paths.get(System.getProperty("java.io.tmpdir"),
+                    "blackjack-edge-" + Integer.toHexString(rules.hashCode()) + ".txt");
+            try {
+                // the rules, then the edge
+                final List<String> lines = Files.readAllLines(file);
+                if (lines.size() == 2 && lines.get(0).equals(rules.toString())) {
+                    return Double.parseDouble(lines.get(1));
+                }
+            } catch (final IOException | NumberFormatException e) {
+                // not there yet, or damaged: simulated again
+            }
+
+            final Simulator simulator = new Simulator(rules);
+            simulator.setMetered(false);
+            final double edge = simulator.run(BASE_EDGE_HANDS, RandomSource.SPLITTABLE.create(0), 1).getExpectedValue();
+            // write aside and move, so that a reader never sees a half written file
+            final Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try {
+                Files.write(temp, List.of(rules.toString(), Double.toString(edge)));
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (final IOException e) {
+                // kept for this process only
+            }
+            return edge;
+        });
+    }
+
+    public SimulationStats run(final long hands, final RandomGenerator random, final int threads) {
+        final ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.invoke(new SimulationTask(hands, random));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // every rule set plays the given number of hands, all on one pool, results in the order of the rules
+    public static Map<RuleSet, SimulationStats> sweep(final List<RuleSet> rules, final long hands,
+                                                      final RandomGenerator random, final int threads) {
+        final ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            final List<ForkJoinTask<SimulationStats>> tasks = new ArrayList<>(rules.size());
+            for (final RuleSet rule : rules) {
+                tasks.add(pool.submit(new Simulator(rule).new SimulationTask(hands, RandomSource.split(random))));
+            }
+            final Map<RuleSet, SimulationStats> results = new LinkedHashMap<>();
+            for (int i = 0; i < rules.size(); i++) {
+                results.put(rules.get(i), tasks.get(i).join());
+            }
+            return results;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // plays the given number of hands on new shoes, rounded up to a round of every table
+    SimulationStats play(final long hands, final RandomGenerator random) {
+        final StrategyDriver driver = new StrategyDriver(rules, tables, PlayerStrategy.of(strategy, rules), random);
+        for (int table = 0; table < tables; table++) {
+            driver.getEngine(table).setMetered(metered);
+        }
+        final SimulationStats stats = new SimulationStats();
+        for (long played = 0; played < hands; played += tables) {
+            driver.playRound(stats);
+        }
+        return stats;
+    }
+
+    private class SimulationTask extends RecursiveTask<SimulationStats> {
+        private static final long serialVersionUID = 1L;
+
+        private final long hands;
+        private final RandomGenerator random;
+
+        SimulationTask(final long hands, final RandomGenerator random) {
+            this.hands = hands;
+            this.random = random;
+        }
+
+        @Override
+        protected SimulationStats compute() {
+            if (hands <= LEAF_HANDS) {
+                return play(hands, random);
+            }
+
+            // split in whole leaves, so that the split (and the result) does not depend on threads
+            final long leaves = (hands + LEAF_HANDS - 1) / LEAF_HANDS;
+            final long leftHands = (leaves / 2) * LEAF_HANDS;
+            final SimulationTask left = new SimulationTask(leftHands, RandomSource.split(random));
+            final SimulationTask right = new SimulationTask(hands - leftHands, random);
+            left.fork();
+            final SimulationStats stats = right.compute();
+            stats.merge(left.join());
+            return stats;
+        }
+    }
+
+    // common rule variants: decks, S17/H17, black jack payout, surrender and DAS
+    static List<RuleSet> variants() {
+        final List<RuleSet> rules = new ArrayList<>();
+        final int[][] payouts = {{2, 1}, {3, 2}, {6, 5}};
+        for (final int decks : new int[]{1, 2, 6, 8}) {
+            for (final boolean hitSoft17 : new boolean[]{false, true}) {
+                for (final int[] payout : payouts) {
+                    for (final RuleSet.Surrender surrender : RuleSet.Surrender.values()) {
+                        for (final boolean doubleAfterSplit : new boolean[]{true, false}) {
+                            rules.add(RuleSet.DEFAULT.toBuilder()
+                                    .decks(decks)
+                                    .penetration(0.75)
+                                    .hitSoft17(hitSoft17)
+                                    .blackJackPayout(payout[0], payout[1])
+                                    .surrender(surrender)
+                                    .doubleAfterSplit(doubleAfterSplit)
+                                    .build());
+                        }
+                    }
+                }
+            }
+        }
+        return rules;
+    }
+
+    // usage: Simulator [hands] [decks] [penetration] [threads] [seed] [strategy] [tables per leaf]
+    //    or: Simulator sweep [hands per rule set] [threads] [seed]
+    public static void main(final String[] args) {
+        Metrics.register();
+        if (args.length > 0 && args[0].equals("sweep")) {
+            sweep(args);
+            return;
+        }
+        final long hands = args.length > 0 ? Long.parseLong(args[0]) : 10_000_000L;
+        final int decks = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+        final double penetration = args.length > 2 ? Double.parseDouble(args[2]) : 0.75;
+        final int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        final long seed = args.length > 4 ? Long.parseLong(args[4]) : System.nanoTime();
+        final String strategy = args.length > 5 ? args[5] : "basic";
+        final int tables = args.length > 6 ? Integer.parseInt(args[6]) : 1;
+
+        final RuleSet rules = RuleSet.DEFAULT.toBuilder().decks(decks).penetration(penetration).build();
+        final long start = System.nanoTime();
+        final SimulationStats stats = new Simulator(rules, strategy, tables)
+                .run(hands, RandomSource.SPLITTABLE.create(seed), threads);
+        final double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println(stats);
+        System.out.printf("Seed: %d, Threads: %d, Strategy: %s, Tables: %d, %.2f s, %,.0f hands/s%n", seed, threads,
+                strategy, tables, seconds, stats.getHands() / seconds);
+    }
+
+    private static void sweep(final String[] args) {
+        final long hands = args.length > 1 ? Long.parseLong(args[1]) : 1_000_000L;
+        final int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        final long seed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+
+        final List<RuleSet> rules = variants();
+        final long start = System.nanoTime();
+        final Map<RuleSet, SimulationStats> results = sweep(rules, hands, RandomSource.SPLITTABLE.create(seed), threads);
+        final double seconds = (System.nanoTime() - start) / 1e9;
+
+        for (final Map.Entry<RuleSet, SimulationStats> result : results.entrySet()) {
+            System.out.printf("%-70s %+.5f +/- %.5f%n", result.getKey(),
+                    result.getValue().getExpectedValue(), result.getValue().getConfidenceInterval());
+        }
+        System.out.printf("%d rule sets, Seed: %d, Threads: %d, %.2f s, %,.0f hands/s%n", rules.size(), seed, threads,
+                seconds, rules.size() * hands / seconds);
+    }
+}
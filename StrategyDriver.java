@@ -0,0 +1,132 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * Plays tables for a {@link PlayerStrategy}, all in step: the deals of every table go to the
+ * strategy in one batch, then the decisions of every table still playing, until all are done.
+ * One seat per table. The batch and the engines are reused, a round allocates nothing.
+ * <p>
+ * Not thread safe, a driver belongs to the thread playing its tables.
+ */
+public class StrategyDriver {
+    private static final Action[] ACTIONS = Action.values();
+    private static final int DEAL = DecisionBatch.bit(Action.DEAL);
+
+    private final BlackJackEngine[] engines;
+    private final CardCounter[] counters; // null unless the strategy counts cards
+    private final PlayerStrategy strategy;
+    private final DecisionBatch batch;
+    private final int offer; // actions allowed when offered insurance and surrender
+    private final long[] earnings; // before the round, per table
+    private final int[] bids; // of the round, per table
+    private final int[] upcards; // of the round, per table
+
+    // the first table shuffles with random, the others with streams split from it
+    public StrategyDriver(final RuleSet rules, final int tables, final PlayerStrategy strategy, final RandomGenerator random) {
+        if (tables < 1) {
+            throw new IllegalArgumentException("At least 1 table is needed!");
+        }
+        this.strategy = strategy;
+        engines = new BlackJackEngine[tables];
+        for (int i = 0; i < tables; i++) {
+            engines[i] = new BlackJackEngine(rules, 1, i == 0 ? random : RandomSource.split(random));
+        }
+        counters = strategy.countsCards() ? new CardCounter[tables] : null;
+        for (int i = 0; counters != null && i < tables; i++) {
+            counters[i] = CardCounter.attach(engines[i]);
+        }
+        batch = new DecisionBatch(tables);
+        earnings = new long[tables];
+        bids = new int[tables];
+        upcards = new int[tables];
+
+        int offer = DecisionBatch.bit(Action.PROCEED);
+        if (rules.getInsurance() != RuleSet.Insurance.NONE) {
+            offer |= DecisionBatch.bit(Action.INSURANCE);
+        }
+        if (rules.getSurrender() != RuleSet.Surrender.NONE) {
+            offer |= DecisionBatch.bit(Action.SURRENDER);
+        }
+        this.offer = offer;
+    }
+
+    public int getTables() {
+        return engines.length;
+    }
+
+    public BlackJackEngine getEngine(final int table) {
+        return engines[table];
+    }
+
+    // a hand at every table, recorded in stats with its bid and earning, and the outcome of each hand it was split into
+    public void playRound(final SimulationStats stats) {
+        batch.clear();
+        for (int table = 0; table < engines.length; table++) {
+            earnings[table] = engines[table].getPlayerEarning(0);
+            batch.add(table, HandValue.EMPTY, 0, DecisionBatch.DEAL, DEAL, trueCount(table));
+        }
+        strategy.decide(batch);
+        apply();
+        for (int table = 0; table < engines.length; table++) {
+            bids[table] = batch.bids[table];
+            upcards[table] = engines[table].getTableCards().get(0).getValue();
+        }
+
+        // every table still waiting for its player, until none is
+        while (true) {
+            batch.clear();
+            for (int table = 0; table < engines.length; table++) {
+                final BlackJackEngine engine = engines[table];
+                final BlackJackEngine.State state = engine.getState();
+                if (state == BlackJackEngine.State.OFFER) {
+                    batch.add(table, engine.getPlayerHand(), upcards[table], DecisionBatch.OFFER, offer, trueCount(table));
+                } else if (state == BlackJackEngine.State.PLAY) {
+                    batch.add(table, engine.getPlayerHand(), upcards[table], DecisionBatch.PLAY, play(engine), trueCount(table));
+                }
+            }
+            if (batch.size() == 0) {
+                break;
+            }
+            strategy.decide(batch);
+            apply();
+        }
+
+        for (int table = 0; table < engines.length; table++) {
+            final BlackJackEngine engine = engines[table];
+            stats.record(bids[table], (int) (engine.getPlayerEarning(0) - earnings[table]));
+            for (int hand = 0; hand < engine.getHands(0); hand++) {
+                stats.record(engine.getOutcome(0, hand));
+            }
+            engine.restart();
+        }
+    }
+
+    private void apply() {
+        for (int i = 0; i < batch.size(); i++) {
+            final int action = batch.actions[i];
+            if (action < 0 || (batch.allowed[i] & 1 << action) == 0) {
+                throw new IllegalStateException(strategy.getClass().getSimpleName() + " chose "
+                        + (action < 0 ? "nothing" : ACTIONS[action]) + ", which is not allowed!");
+            }
+            engines[batch.tables[i]].apply(ACTIONS[action], batch.bids[i]);
+        }
+    }
+
+    private static int play(final BlackJackEngine engine) {
+        final int seat = engine.getCurrentSeat();
+        int allowed = DecisionBatch.bit(Action.STAY);
+        if (engine.canHit(seat)) {
+            allowed |= DecisionBatch.bit(Action.HIT);
+        }
+        if (engine.canDoubleDown(seat)) {
+            allowed |= DecisionBatch.bit(Action.DOUBLE_DOWN);
+        }
+        if (engine.canSplit(seat)) {
+            allowed |= DecisionBatch.bit(Action.SPLIT);
+        }
+        return allowed;
+    }
+
+    private double trueCount(final int table) {
+        return counters == null ? 0 : counters[table].getTrueCount(CountingSystem.HI_LO);
+    }
+}
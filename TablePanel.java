@@ -0,0 +1,359 @@
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The game table in one component: the table's cards, the status image, then a row of cards per
+ * seat, split hands sharing the row. Cards are painted from a {@link CardAtlas}, and a new
+ * {@link TableView} only repaints the cards and texts that changed. Dealt cards fly in from the
+ * shoe (on the left), one frame every 16 ms.
+ * <pre>
+ * | table cards ...                     | rank |
+ * |               status                       |
+ * | seat 1, hand 1 cards | hand 2 cards | rank |
+ * </pre>
+ */
+class TablePanel extends JComponent {
+    private static final long serialVersionUID = 1L;
+    private static final int GAP = 2; // around every card
+    private static final int FRAME_MILLIS = 16; // about 60 frames per second
+    private static final long FLIGHT_NANOS = 250_000_000L;
+    private static final long STAGGER_NANOS = 90_000_000L; // between cards dealt together
+    private static final BasicStroke MARKER = new BasicStroke(3); // around the hand being played
+
+    private static final int MAX_CARDS = BlackJackEngine.MAX_CARDS;
+    private final int seats;
+    private final ScaledImageCache scaledImages; // for the status image
+
+    private TableView view; // painted
+    private final List<Flight> flights = new ArrayList<>(); // cards on their way to their place
+    private final Timer timer = new Timer(FRAME_MILLIS, e -> animate());
+
+    // a dealt card, drawn at its place once it lands
+    private static final class Flight {
+        final int row;
+        final int column;
+        final int sprite;
+        final long start;
+        final Rectangle painted = new Rectangle(); // last frame, to be repainted over
+
+        Flight(final int row, final int column, final int sprite, final long start) {
+            this.row = row;
+            this.column = column;
+            this.sprite = sprite;
+            this.start = start;
+        }
+    }
+
+    TablePanel(final int seats, final ScaledImageCache scaledImages) {
+        this.seats = seats;
+        this.scaledImages = scaledImages;
+        setOpaque(false);
+        setFont(UIManager.getFont("Label.font"));
+    }
+
+    // on the game thread: builds the atlases and scales the status image the view will need
+    // the size may be read while being laid out, anything missing is then made when painted
+    void prepare(final TableView view) {
+        for (int row = 0; row < rows(); row++) {
+            if (row != 1) {
+                final Dimension card = cardSize(view, row);
+                if (card != null) {
+                    CardAtlas.of(card.width, card.height);
+                }
+            }
+        }
+        final Rectangle status = rowBounds(1);
+        scaledImages.get(ImageCache.get(statusImage(view)), status.width, status.height);
+    }
+
+    // the next view is painted as a whole, after a resize
+    void reset() {
+        view = null;
+    }
+
+    // on the event dispatch thread: repaints what differs from the view painted
+    void setView(final TableView next) {
+        final TableView shown = view;
+        view = next;
+        if (shown == null) {
+            cancelFlights();
+            repaint();
+            return;
+        }
+        final long now = System.nanoTime();
+        int dealt = 0;
+        for (int i = 0; i < MAX_CARDS; i++) {
+            // round robin, like the cards are dealt
+            for (int row = 2; row < rows(); row++) {
+                dealt += compare(shown, next, row, i, now, dealt);
+            }
+            dealt += compare(shown, next, 0, i, now, dealt);
+        }
+        for (int row = 0; row < rows(); row++) {
+            if (row == 1) {
+                continue;
+            }
+            if (columns(shown, row) != columns(next, row)) {
+                repaint(rowBounds(row));
+            } else if (!rank(shown, row).equals(rank(next, row))) {
+                repaint(cellBounds(row, columns(next, row) - 1));
+            }
+            for (int hand = 0; row >= 2 && hand < next.hands[row - 2]; hand++) {
+                if (hand >= shown.hands[row - 2] || current(shown, row, hand) != current(next, row, hand)) {
+                    repaint(handBounds(row, hand));
+                }
+            }
+        }
+        if (!statusImage(shown).equals(statusImage(next))) {
+            repaint(rowBounds(1));
+        }
+    }
+
+    // the i-th card of every hand of the row, returns the number of cards dealt there
+    private int compare(final TableView shown, final TableView next, final int row, final int i, final long now,
+                        final int dealt) {
+        if (columns(shown, row) != columns(next, row)) {
+            // a split, the row is repainted as a whole
+            return 0;
+        }
+        int flying = 0;
+        final int hands = row == 0 ? 1 : next.hands[row - 2];
+        for (int hand = 0; hand < hands; hand++) {
+            final int column = hand * MAX_CARDS + i;
+            final int before = sprite(shown, row, column);
+            final int after = sprite(next, row, column);
+            if (before == after) {
+                continue;
+            }
+            if (before == CardAtlas.EMPTY) {
+                startFlight(new Flight(row, column, after, now + (dealt + flying) * STAGGER_NANOS));
+                flying++;
+            } else {
+                // turned over, or taken back (before it landed)
+                if (flights.removeIf(flight -> flight.row == row && flight.column == column)) {
+                    repaint();
+                }
+                repaint(cellBounds(row, column));
+            }
+        }
+        return flying;
+    }
+
+    private void startFlight(final Flight flight) {
+        flights.add(flight);
+        if (!timer.isRunning()) {
+            timer.start();
+        }
+    }
+
+    private void cancelFlights() {
+        flights.clear();
+        timer.stop();
+    }
+
+    // one frame: repaints where the flying cards were and where they are now
+    private void animate() {
+        final long now = System.nanoTime();
+        for (int i = flights.size() - 1; i >= 0; i--) {
+            final Flight flight = flights.get(i);
+            repaint(flight.painted);
+            if (now - flight.start >= FLIGHT_NANOS) {
+                flights.remove(i);
+                repaint(cellBounds(flight.row, flight.column));
+            } else {
+                final Rectangle at = flightBounds(flight, now);
+                if (at != null) {
+                    repaint(at);
+                }
+            }
+        }
+        if (flights.isEmpty()) {
+            timer.stop();
+        }
+    }
+
+    // where the card is now, null before it leaves the shoe
+    private Rectangle flightBounds(final Flight flight, final long now) {
+        if (now < flight.start) {
+            return null;
+        }
+        final Rectangle to = cellBounds(flight.row, flight.column);
+        final Insets insets = getInsets();
+        final double t = Math.min(1, (double) (now - flight.start) / FLIGHT_NANOS);
+        // eases out, fast from the shoe and slow into place
+        final double eased = 1 - (1 - t) * (1 - t);
+        final int fromX = insets.left - to.width;
+        final int fromY = (getHeight() - to.height) / 2;
+        return new Rectangle((int) (fromX + (to.x - fromX) * eased), (int) (fromY + (to.y - fromY) * eased),
+                to.width, to.height);
+    }
+
+    private boolean flying(final int row, final int column) {
+        for (final Flight flight : flights) {
+            if (flight.row == row && flight.column == column) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected void paintComponent(final Graphics graphics) {
+        if (view == null) {
+            return;
+        }
+        final long start = Metrics.start();
+        final Graphics2D g = (Graphics2D) graphics;
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        final Rectangle clip = g.getClipBounds() != null ? g.getClipBounds() : new Rectangle(getSize());
+
+        for (int row = 0; row < rows(); row++) {
+            if (!clip.intersects(rowBounds(row))) {
+                continue;
+            }
+            if (row == 1) {
+                final Rectangle bounds = rowBounds(1);
+                final ImageIcon status = scaledImages.get(ImageCache.get(statusImage(view)), bounds.width, bounds.height);
+                status.paintIcon(this, g, bounds.x + (bounds.width - status.getIconWidth()) / 2,
+                        bounds.y + (bounds.height - status.getIconHeight()) / 2);
+                continue;
+            }
+            paintRow(g, clip, row);
+        }
+
+        // cards in flight, over the table
+        final long now = System.nanoTime();
+        for (final Flight flight : flights) {
+            final Rectangle at = flightBounds(flight, now);
+            if (at != null && at.width > 0 && at.height > 0) {
+                CardAtlas.of(at.width, at.height).draw(g, flight.sprite, at.x, at.y);
+                flight.painted.setBounds(at);
+            }
+        }
+        Metrics.TABLE_PAINT.recordSince(start);
+    }
+
+    private void paintRow(final Graphics2D g, final Rectangle clip, final int row) {
+        final int columns = columns(view, row);
+        final Dimension card = cardSize(view, row);
+        if (card == null) {
+            return;
+        }
+        final CardAtlas atlas = CardAtlas.of(card.width, card.height);
+        for (int column = 0; column < columns - 1; column++) {
+            final Rectangle cell = cellBounds(row, column);
+            if (clip.intersects(cell)) {
+                final int sprite = flying(row, column) ? CardAtlas.EMPTY : sprite(view, row, column);
+                atlas.draw(g, sprite, cell.x, cell.y);
+            }
+        }
+
+        // the hand being played is marked
+        for (int hand = 0; row >= 2 && hand < view.hands[row - 2]; hand++) {
+            if (current(view, row, hand)) {
+                final Rectangle bounds = handBounds(row, hand);
+                // on a copy, the border is painted with g after the component
+                final Graphics2D marker = (Graphics2D) g.create();
+                try {
+                    marker.setColor(Color.ORANGE);
+                    marker.setStroke(MARKER);
+                    marker.drawRect(bounds.x + 1, bounds.y + 1, bounds.width - 3, bounds.height - 3);
+                } finally {
+                    marker.dispose();
+                }
+            }
+        }
+
+        final Rectangle rank = cellBounds(row, columns - 1);
+        if (clip.intersects(rank)) {
+            g.setColor(getForeground());
+            g.setFont(getFont());
+            final FontMetrics metrics = g.getFontMetrics();
+            g.drawString(rank(view, row), rank.x + GAP,
+                    rank.y + (rank.height - metrics.getHeight()) / 2 + metrics.getAscent());
+        }
+    }
+
+    // the table's, the status, then one per seat
+    private int rows() {
+        return 2 + seats;
+    }
+
+    // cards and the rank of the row
+    private int columns(final TableView view, final int row) {
+        return row == 0 ? MAX_CARDS + 1 : view.hands[row - 2] * MAX_CARDS + 1;
+    }
+
+    private int sprite(final TableView view, final int row, final int column) {
+        if (row == 0) {
+            return column == 1 && view.holeHidden && view.tableCard(1) != null
+                    ? CardAtlas.BACK : CardAtlas.sprite(view.tableCard(column));
+        }
+        final int seat = row - 2;
+        if (column >= view.hands[seat] * MAX_CARDS) {
+            return CardAtlas.EMPTY;
+        }
+        return CardAtlas.sprite(view.playerCard(seat, column / MAX_CARDS, column % MAX_CARDS));
+    }
+
+    private static String rank(final TableView view, final int row) {
+        return row == 0 ? view.tableRank : view.playerRank[row - 2];
+    }
+
+    private static boolean current(final TableView view, final int row, final int hand) {
+        return hand < view.hands[row - 2] && view.current[row - 2][hand];
+    }
+
+    private Rectangle rowBounds(final int row) {
+        final Insets insets = getInsets();
+        final int height = (getHeight() - insets.top - insets.bottom) / rows();
+        return new Rectangle(insets.left, insets.top + row * height, getWidth() - insets.left - insets.right, height);
+    }
+
+    // a card's place (without its gap), or the rank's
+    private Rectangle cellBounds(final int row, final int column) {
+        final Rectangle bounds = rowBounds(row);
+        final int width = bounds.width / columns(view, row);
+        return new Rectangle(bounds.x + column * width + GAP, bounds.y + GAP, width - 2 * GAP, bounds.height - 2 * GAP);
+    }
+
+    private Rectangle handBounds(final int row, final int hand) {
+        final Rectangle bounds = rowBounds(row);
+        final int width = bounds.width / columns(view, row);
+        return new Rectangle(bounds.x + hand * MAX_CARDS * width, bounds.y, MAX_CARDS * width, bounds.height);
+    }
+
+    // null while the component has no room for cards
+    private Dimension cardSize(final TableView view, final int row) {
+        final Rectangle bounds = rowBounds(row);
+        final int width = bounds.width / columns(view, row) - 2 * GAP;
+        final int height = bounds.height - 2 * GAP;
+        return width > 0 && height > 0 ? new Dimension(width, height) : null;
+    }
+
+    // the status images are only loaded once shown
+    private static String statusImage(final TableView view) {
+        if (view.status == null) {
+            return "deal.png";
+        }
+        switch (view.status) {
+            case BLACK_JACK:
+                return "black_jack.png";
+            case WIN:
+                return "winner.jpeg";
+            case LOSE:
+                return "looser.jpg";
+            case PUSH:
+                return "no_winner.jpg";
+            case INSURED:
+                return "insured.png";
+            case SURRENDERED:
+                return "surrendered.png";
+            default:
+                // game is on...
+                return "game_on_going.jpg";
+        }
+    }
+}
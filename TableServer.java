@@ -0,0 +1,237 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hosts one {@link BlackJackEngine} table per connection, over a local TCP port or a Unix socket.
+ * <p>
+ * The protocol is one line per request and one line per response (UTF-8):
+ * <pre>
+ * DEAL bid | INSURANCE | SURRENDER | PROCEED | DOUBLE | HIT | STAY | SPLIT | RESTART | STATE | QUIT
+ * OK state outcome playerScore tableScore playerEarning tableEarning playerCards tableCards
+ * ERR message
+ * </pre>
+ * The table's hole card is sent as "??" and its score as its upcard's until the hand is finished.
+ * Split hands are separated by "|", the scores are those of the hand being played.
+ */
+public class TableServer {
+    private final SocketAddress address;
+    private final RuleSet rules;
+
+    // shuffled shoes shared by the tables, -Dblackjack.shoePool=0 shuffles at each table
+    private static final int POOL_SHOES = Integer.getInteger("blackjack.shoePool", 64);
+
+    private final ExecutorService executor = newTaskExecutor();
+    private final ShoePool pool;
+    private final AtomicInteger sessions = new AtomicInteger();
+    private volatile ServerSocketChannel server;
+
+    // every table plays by the same rules
+    public TableServer(final SocketAddress address, final RuleSet rules) {
+        this.address = address;
+        this.rules = rules;
+        pool = POOL_SHOES > 0 ? new ShoePool(rules.getDecks(), POOL_SHOES, RandomSource.SPLITTABLE.create()) : null;
+    }
+
+    // virtual threads where the JDK has them (21+), otherwise a cached thread pool
+    static ExecutorService newTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (final ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                final Thread thread = new Thread(runnable);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    // "host:port", "port" (loopback) or a Unix socket path
+    static SocketAddress parseAddress(final String address) throws IOException {
+        if (address.matches("\\d+")) {
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(address));
+        }
+        final int colon = address.lastIndexOf(':');
+        if (colon > 0 && address.substring(colon + 1).matches("\\d+")) {
+            return new InetSocketAddress(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)));
+        }
+        return UnixDomainSocketAddress.of(address);
+    }
+
+    // small request/response lines, do not wait to fill a packet
+    static SocketChannel configure(final SocketChannel channel) throws IOException {
+        if (!(channel.getLocalAddress() instanceof UnixDomainSocketAddress)) {
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        }
+        return channel;
+    }
+
+    public void start() throws IOException {
+        if (address instanceof UnixDomainSocketAddress) {
+            Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        } else {
+            server = ServerSocketChannel.open();
+        }
+        server.bind(address, 1024);
+
+        final Thread acceptor = new Thread(this::accept, "table-server-acceptor");
+        acceptor.start();
+    }
+
+    public void stop() throws IOException {
+        server.close();
+        executor.shutdownNow();
+        if (pool != null) {
+            pool.close();
+        }
+        if (address instanceof UnixDomainSocketAddress) {
+            Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+        }
+    }
+
+    public int getSessions() {
+        return sessions.get();
+    }
+
+    private void accept() {
+        while (server.isOpen()) {
+            try {
+                final SocketChannel channel = configure(server.accept());
+                executor.execute(() -> serve(channel));
+            } catch (final IOException e) {
+                if (server.isOpen()) {
+                    System.err.println("Accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    // one table for the lifetime of the connection
+    private void serve(final SocketChannel channel) {
+        sessions.incrementAndGet();
+        final BlackJackEngine engine = new BlackJackEngine(rules, 1, RandomSource.SPLITTABLE.create());
+        engine.setShoePool(pool);
+        engine.setLedger(Ledger.DEFAULT);
+        final StringBuilder response = new StringBuilder(128);
+        try (channel;
+             final BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+             final BufferedWriter out = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                response.setLength(0);
+                if (!handle(engine, line.trim(), response)) {
+                    break;
+                }
+                out.append(response).append('\n');
+                out.flush();
+            }
+        } catch (final IOException e) {
+            // client went away, the table goes with it
+        } finally {
+            sessions.decrementAndGet();
+        }
+    }
+
+    // false when the client quits
+    static boolean handle(final BlackJackEngine engine, final String request, final StringBuilder response) {
+        final int space = request.indexOf(' ');
+        final String command = (space < 0 ? request : request.substring(0, space)).toUpperCase();
+        if (command.equals("QUIT")) {
+            return false;
+        }
+        try {
+            if (!command.equals("STATE")) {
+                final Action action = parseAction(command);
+                final int bid = space < 0 ? 0 : Integer.parseInt(request.substring(space + 1).trim());
+                engine.apply(action, bid);
+            }
+            writeState(engine, response);
+        } catch (final IllegalArgumentException | IllegalStateException e) {
+            response.append("ERR ").append(e.getMessage());
+        }
+        return true;
+    }
+
+    static Action parseAction(final String command) {
+        if (command.equals("DOUBLE")) {
+            return Action.DOUBLE_DOWN;
+        }
+        for (final Action action : Action.values()) {
+            if (action.name().equals(command)) {
+                return action;
+            }
+        }
+        throw new IllegalArgumentException("Unknown command: " + command);
+    }
+
+    static void writeState(final BlackJackEngine engine, final StringBuilder response) {
+        final boolean finished = engine.getState() == BlackJackEngine.State.FINISHED;
+        final boolean dealt = !engine.getTableCards().isEmpty();
+        response.append("OK ").append(engine.getState())
+                .append(' ').append(engine.getOutcome())
+                .append(' ').append(engine.computePlayerScore())
+                .append(' ').append(finished || !dealt ? engine.computeTableScore()
+                        : HandValue.score(HandValue.add(HandValue.EMPTY, engine.getTableCards().get(0))))
+                .append(' ').append(engine.getPlayerEarning())
+                .append(' ').append(engine.getTableEarning())
+                .append(' ');
+        // split hands are separated by '|'
+        final int seat = engine.getCurrentSeat();
+        for (int hand = 0; hand < engine.getHands(seat); hand++) {
+            if (hand > 0) {
+                response.append('|');
+            }
+            appendCards(engine.getPlayerCards(seat, hand), Integer.MAX_VALUE, response);
+        }
+        response.append(' ');
+        appendCards(engine.getTableCards(), finished ? Integer.MAX_VALUE : 1, response);
+    }
+
+    private static void appendCards(final List<Card> cards, final int visible, final StringBuilder response) {
+        if (cards.isEmpty()) {
+            response.append('-');
+            return;
+        }
+        for (int i = 0; i < cards.size(); i++) {
+            if (i > 0) {
+                response.append(',');
+            }
+            if (i < visible) {
+                response.append(cards.get(i));
+            } else {
+                response.append("??");
+            }
+        }
+    }
+
+    // usage: TableServer [port|host:port|unix socket path] [decks] [penetration]
+    public static void main(final String[] args) throws IOException {
+        Metrics.register();
+        final SocketAddress address = parseAddress(args.length > 0 ? args[0] : "7777");
+        final int decks = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+        final double penetration = args.length > 2 ? Double.parseDouble(args[2]) : 0.75;
+
+        final RuleSet rules = RuleSet.DEFAULT.toBuilder().decks(decks).penetration(penetration).build();
+        final TableServer server = new TableServer(address, rules);
+        server.start();
+        System.out.println("BlackJack tables on " + address + ", " + rules);
+    }
+}
@@ -0,0 +1,182 @@
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * What {@link BlackJack} shows, copied out of the engine after an action. It is built on the
+ * game thread and never changes, so the event dispatch thread can draw it while the next action
+ * runs, and compare it with the view on screen to only touch what changed.
+ * A card that is not dealt is null.
+ */
+final class TableView {
+    static final int DEFAULT_BID = 100;
+
+    final BlackJackEngine.State state;
+    final Set<Action> enabled; // buttons that can be pressed
+    final Action hint; // null when hints are off
+
+    final String bid;
+    final boolean bidEditable;
+
+    final Card[] tableCards = new Card[BlackJackEngine.MAX_CARDS];
+    final boolean holeHidden; // table's second card is upside down until the game ends
+    final String tableRank;
+    final String tableEarning;
+
+    final int[] hands; // [seat]
+    final Card[][][] playerCards; // [seat][hand][card]
+    final boolean[][] current; // [seat][hand], the hand being played, when there is a choice
+    final String[] playerRank; // [seat]
+    final String[] playerEarning; // [seat]
+
+    final Outcome status; // null before the deal
+    final String servingDeckSize;
+    final String backupDeckSize;
+    final boolean servingDeck; // any card left in the shoe
+    final Card backupTop; // last returned card
+    final String counts; // running and true counts, edge and bid, null without a counter
+
+    private TableView(final BlackJackEngine engine, final Action hint, final CardCounter counter) {
+        state = engine.getState();
+        this.hint = hint;
+        final boolean finished = state == BlackJackEngine.State.FINISHED;
+        final boolean offer = state == BlackJackEngine.State.OFFER;
+        final boolean play = state == BlackJackEngine.State.PLAY;
+
+        final EnumSet<Action> actions = EnumSet.noneOf(Action.class);
+        enable(actions, Action.DEAL, state == BlackJackEngine.State.DEAL);
+        enable(actions, Action.INSURANCE, offer && engine.getRules().getInsurance() != RuleSet.Insurance.NONE);
+        enable(actions, Action.SURRENDER, offer && engine.getRules().getSurrender() != RuleSet.Surrender.NONE);
+        enable(actions, Action.PROCEED, offer);
+        enable(actions, Action.DOUBLE_DOWN, engine.canDoubleDown());
+        enable(actions, Action.HIT, play && engine.canHit(engine.getCurrentSeat()));
+        enable(actions, Action.STAY, play);
+        enable(actions, Action.SPLIT, engine.canSplit());
+        enable(actions, Action.RESTART, finished);
+        enabled = Collections.unmodifiableSet(actions);
+
+        // the bid can only be changed before the deal
+        bidEditable = state == BlackJackEngine.State.DEAL;
+        bid = bidEditable ? Integer.toString(DEFAULT_BID) : engine.getCurrentBid() + (engine.isInsured() ? " (Insured)" : "");
+
+        final List<Card> table = engine.getTableCards();
+        for (int i = 0; i < table.size(); i++) {
+            tableCards[i] = table.get(i);
+        }
+        holeHidden = !finished;
+        tableRank = !finished ? "Rank: " : "Rank: " + rankText(engine.getTableHand());
+        tableEarning = "Table Earning: " + engine.getTableEarning();
+
+        final int seats = engine.getSeats();
+        hands = new int[seats];
+        playerCards = new Card[seats][][];
+        current = new boolean[seats][];
+        playerRank = new String[seats];
+        playerEarning = new String[seats];
+        final boolean acting = offer || play;
+        for (int seat = 0; seat < seats; seat++) {
+            hands[seat] = engine.getHands(seat);
+            playerCards[seat] = new Card[hands[seat]][BlackJackEngine.MAX_CARDS];
+            current[seat] = new boolean[hands[seat]];
+            final StringBuilder rank = new StringBuilder("Rank: ");
+            for (int hand = 0; hand < hands[seat]; hand++) {
+                final List<Card> cards = engine.getPlayerCards(seat, hand);
+                for (int i = 0; i < cards.size(); i++) {
+                    playerCards[seat][hand][i] = cards.get(i);
+                }
+
+                // the hand being played is marked, when there is more than one to choose from
+                current[seat][hand] = acting && engine.getCurrentSeat() == seat && engine.getCurrentHand(seat) == hand
+                        && (seats > 1 || hands[seat] > 1);
+
+                if (state == BlackJackEngine.State.DEAL) {
+                    continue;
+                }
+                if (hand > 0) {
+                    rank.append(" | ");
+                }
+                rank.append(rankText(engine.getPlayerHand(seat, hand)));
+                // with several hands, the status image only shows one of them
+                if ((seats > 1 || hands[seat] > 1) && engine.getOutcome(seat, hand).isFinal()) {
+                    rank.append(' ').append(engine.getOutcome(seat, hand));
+                }
+            }
+            playerRank[seat] = rank.toString();
+            final String player = seats > 1 ? "Player " + (seat + 1) : "Player";
+            playerEarning[seat] = player + " Earning: " + engine.getPlayerEarning(seat);
+        }
+
+        status = state == BlackJackEngine.State.DEAL ? null : engine.getOutcome();
+        final Deck servingCardDeck = engine.getServingCardDeck();
+        final Deck returnCardDeck = engine.getReturnCardDeck();
+        servingDeckSize = "Serving Deck: " + servingCardDeck.size() + " Cards";
+        backupDeckSize = "Backup Deck: " + returnCardDeck.size() + " Cards";
+        servingDeck = servingCardDeck.size() > 0;
+        backupTop = returnCardDeck.size() > 0 ? returnCardDeck.peak() : null;
+        counts = counter != null ? countText(counter) : null;
+    }
+
+    // on the thread that plays the engine
+    static TableView of(final BlackJackEngine engine, final Action hint) {
+        return new TableView(engine, hint, null);
+    }
+
+    static TableView of(final BlackJackEngine engine, final Action hint, final CardCounter counter) {
+        return new TableView(engine, hint, counter);
+    }
+
+    // a line per counting system, then the edge and the bid by Hi-Lo, spread 1 to 8 from the default bid
+    private static String countText(final CardCounter counter) {
+        final StringBuilder text = new StringBuilder("<html>");
+        for (final CountingSystem system : CountingSystem.values()) {
+            text.append(String.format("%s: RC %+d, TC %+.1f<br>", system, counter.getRunningCount(system),
+                    counter.getTrueCount(system)));
+        }
+        final double edge = counter.getEdge(CountingSystem.HI_LO);
+        if (!Double.isNaN(edge)) {
+            text.append(String.format("Edge: %+.1f%%, ", edge * 100));
+        }
+        return text.append("Bid: ").append(counter.suggestBid(CountingSystem.HI_LO, DEFAULT_BID, 8))
+                .append("</html>").toString();
+    }
+
+    private static void enable(final Set<Action> actions, final Action action, final boolean enabled) {
+        if (enabled) {
+            actions.add(action);
+        }
+    }
+
+    // a card of the table, null if not dealt
+    Card tableCard(final int i) {
+        return tableCards[i];
+    }
+
+    // a card of a seat, null if not dealt or the hand does not exist
+    Card playerCard(final int seat, final int hand, final int i) {
+        return hand < hands[seat] ? playerCards[seat][hand][i] : null;
+    }
+
+    // the seat's cards and rank are the same in both views
+    boolean sameSeat(final TableView other, final int seat) {
+        return other != null
+                && hands[seat] == other.hands[seat]
+                && Arrays.deepEquals(playerCards[seat], other.playerCards[seat])
+                && Arrays.equals(current[seat], other.current[seat])
+                && playerRank[seat].equals(other.playerRank[seat]);
+    }
+
+    static boolean changed(final Object shown, final Object next) {
+        return !Objects.equals(shown, next);
+    }
+
+    static String rankText(final int hand) {
+        final int rank = HandValue.hardTotal(hand);
+        if (HandValue.hasAce(hand) && (rank + 10) <= 21) {
+            return "" + rank + " OR " + (rank + 10);
+        }
+        return "" + rank;
+    }
+}
@@ -0,0 +1,54 @@
+package blackjack.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * The hot paths of the game under JMH: shuffles, take and return cycles, refills at the cut card,
+ * hand scoring, batches of 1024 hands (SIMD with -jvmArgs --add-modules=jdk.incubator.vector and
+ * -p name=hands.score.vector16 on a build with -Pvector), the table's turn and full hands as the
+ * simulator plays them. One fork per benchmark, so that none sees another's profile.
+ * <pre>
+ * java -jar jmh/target/benchmarks.jar -prof gc
+ * java -jar jmh/target/benchmarks.jar -p name=deck.shuffle,hand.full -prof gc
+ * </pre>
+ * The operations and their fixtures are the game's Benchmarks: the game is in the default package,
+ * which JMH's generated code cannot be in and this package cannot name, so the operation is looked
+ * up once, in the setup, and its result goes to JMH's blackhole.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HotPathBenchmarks {
+
+    @Param({"deck.shuffle", "deck.takeReturn", "deck.refill", "deck.refillPooled", "hand.score", "hand.add",
+            "hands.score.scalar", "hands.table.scalar", "table.turn", "hand.full"})
+    public String name;
+
+    private LongSupplier operation;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        operation = (LongSupplier) Class.forName("Benchmarks").getMethod("operation", String.class).invoke(null, name);
+    }
+
+    @Benchmark
+    public long run() {
+        return operation.getAsLong();
+    }
+}
@@ -0,0 +1,93 @@
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Evaluates as many hands at once as the CPU has int lanes (8 with AVX2), without branches per
+ * hand: a card position is one vector load for all the lanes, and the table draws in the lanes
+ * that must, under a mask, until no lane must. The hands left over are evaluated by
+ * {@link ScalarHandEvaluator}.
+ * <p>
+ * Needs --add-modules jdk.incubator.vector to compile and to run, see {@link HandEvaluator}.
+ */
+public class VectorHandEvaluator implements HandEvaluator {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+    private static final int MAX_HARD = 31; // as in HandValue
+
+    @Override
+    public String getName() {
+        return "vector" + SPECIES.length();
+    }
+
+    @Override
+    public void scorePlayers(final HandBatch batch) {
+        final int[][] cards = batch.playerCards;
+        final int upper = SPECIES.loopBound(batch.size());
+        for (int i = 0; i < upper; i += SPECIES.length()) {
+            IntVector hard = IntVector.zero(SPECIES);
+            IntVector count = IntVector.zero(SPECIES);
+            VectorMask<Integer> ace = SPECIES.maskAll(false);
+            for (int position = 0; position < cards.length; position++) {
+                final IntVector card = IntVector.fromArray(SPECIES, cards[position], i);
+                final VectorMask<Integer> dealt = card.compare(VectorOperators.NE, 0);
+                if (!dealt.anyTrue()) {
+                    break;
+                }
+                hard = hard.add(card);
+                count = count.add(1, dealt);
+                ace = ace.or(card.eq(1));
+            }
+            hard = hard.min(MAX_HARD);
+            final VectorMask<Integer> soft = ace.and(hard.compare(VectorOperators.LE, 11));
+            final IntVector score = hard.add(10, soft);
+            hard.intoArray(batch.hardTotals, i);
+            score.intoArray(batch.scores, i);
+            flags(score, count, soft, hard).intoArray(batch.flags, i);
+        }
+        ScalarHandEvaluator.scorePlayers(batch, upper, batch.size());
+    }
+
+    @Override
+    public void playTables(final HandBatch batch, final boolean hitSoft17) {
+        final int[][] cards = batch.tableCards;
+        final int upper = SPECIES.loopBound(batch.size());
+        for (int i = 0; i < upper; i += SPECIES.length()) {
+            final IntVector upcard = IntVector.fromArray(SPECIES, cards[0], i);
+            final IntVector hole = IntVector.fromArray(SPECIES, cards[1], i);
+            IntVector hard = upcard.add(hole);
+            IntVector count = IntVector.broadcast(SPECIES, 2);
+            VectorMask<Integer> ace = upcard.eq(1).or(hole.eq(1));
+            for (int position = 2; position < cards.length; position++) {
+                // the draw rule: an ace counted as 11 for the total, with H17 a soft 17 draws too
+                VectorMask<Integer> draw = hard.add(10, ace).compare(VectorOperators.LE, 16);
+                if (hitSoft17) {
+                    draw = draw.or(ace.and(hard.eq(7)));
+                }
+                final IntVector card = IntVector.fromArray(SPECIES, cards[position], i);
+                draw = draw.and(card.compare(VectorOperators.NE, 0));
+                if (!draw.anyTrue()) {
+                    break;
+                }
+                hard = hard.add(card, draw);
+                count = count.add(1, draw);
+                ace = ace.or(card.eq(1).and(draw));
+            }
+            hard = hard.min(MAX_HARD);
+            final VectorMask<Integer> soft = ace.and(hard.compare(VectorOperators.LE, 11));
+            final IntVector score = hard.add(10, soft);
+            score.intoArray(batch.tableScores, i);
+            flags(score, count, soft, hard).intoArray(batch.tableFlags, i);
+            count.intoArray(batch.tableCardCounts, i);
+        }
+        ScalarHandEvaluator.playTables(batch, hitSoft17, upper, batch.size());
+    }
+
+    private static IntVector flags(final IntVector score, final IntVector count, final VectorMask<Integer> soft,
+                                   final IntVector hard) {
+        return IntVector.zero(SPECIES)
+                .add(HandBatch.SOFT, soft)
+                .add(HandBatch.BUST, hard.compare(VectorOperators.GT, 21))
+                .add(HandBatch.BLACK_JACK, count.eq(2).and(score.eq(21)));
+    }
+}